@@ -0,0 +1,90 @@
+package pl.nn.currencyexchange.benchmark;
+
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+import pl.nn.currencyexchange.application.rest.dto.AccountBalanceQuery;
+import pl.nn.currencyexchange.domain.entity.Account;
+import pl.nn.currencyexchange.domain.repository.AccountRepository;
+
+/**
+ * Wallet lookup latency as the number of stored currency balances grows. With the unique
+ * {@code (account_id, currency)} index the cost should stay flat across the whole range.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class BalanceLookupBenchmark {
+
+  private static final String ACCOUNT_ID = "00000000-0000-0000-0002-%012d";
+
+  /**
+   * Every account holds a PLN and a USD balance.
+   */
+  @Param({"1000", "100000", "1000000", "10000000"})
+  private int balances;
+
+  private BenchmarkApplication application;
+  private AccountRepository accountRepository;
+  private int accounts;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    application = BenchmarkApplication.start();
+    accountRepository = application.getBean(AccountRepository.class);
+    accounts = balances / 2;
+    var jdbcTemplate = application.getBean(JdbcTemplate.class);
+    jdbcTemplate.update("INSERT INTO owner (id, first_name, last_name) "
+        + "SELECT " + uuid("0001") + ", 'Jan', 'Kowalski' FROM SYSTEM_RANGE(1, ?)", accounts);
+    jdbcTemplate.update("INSERT INTO account (id, owner_id) "
+        + "SELECT " + uuid("0002") + ", " + uuid("0001") + " FROM SYSTEM_RANGE(1, ?)", accounts);
+    jdbcTemplate.update("INSERT INTO currency_balance (id, currency, amount, account_id) "
+        + "SELECT " + uuid("0003") + ", 'PLN', 1000.00, " + uuid("0002")
+        + " FROM SYSTEM_RANGE(1, ?)", accounts);
+    jdbcTemplate.update("INSERT INTO currency_balance (id, currency, amount, account_id) "
+        + "SELECT " + uuid("0004") + ", 'USD', 10.00, " + uuid("0002")
+        + " FROM SYSTEM_RANGE(1, ?)", accounts);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    application.close();
+  }
+
+  @Benchmark
+  public Optional<AccountBalanceQuery> findAccountBalance() {
+    return accountRepository.findAccountBalance(randomAccount());
+  }
+
+  @Benchmark
+  public Optional<Account> findAccount() {
+    return accountRepository.findById(randomAccount());
+  }
+
+  private UUID randomAccount() {
+    var number = ThreadLocalRandom.current().nextInt(1, accounts + 1);
+    return UUID.fromString(String.format(ACCOUNT_ID, number));
+  }
+
+  private static String uuid(String group) {
+    return "CAST('00000000-0000-0000-" + group + "-' || LPAD(CAST(X AS VARCHAR), 12, '0') AS UUID)";
+  }
+}
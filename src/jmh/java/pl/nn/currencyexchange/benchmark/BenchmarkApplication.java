@@ -0,0 +1,79 @@
+package pl.nn.currencyexchange.benchmark;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.okJson;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.options;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.UUID;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.io.ClassPathResource;
+import pl.nn.currencyexchange.CurrencyExchangeApplication;
+
+/**
+ * The application without its web layer, backed by a private in-memory H2 database and an NBP
+ * stub answering rates requests with the recorded table C. Given properties override the defaults,
+ * including the datasource.
+ */
+public final class BenchmarkApplication implements AutoCloseable {
+
+  private static final String NBP_RATES = "/json/nbpTables__c.json";
+
+  private final WireMockServer nbp;
+  private final ConfigurableApplicationContext context;
+
+  private BenchmarkApplication(WireMockServer nbp, ConfigurableApplicationContext context) {
+    this.nbp = nbp;
+    this.context = context;
+  }
+
+  public static BenchmarkApplication start(String... properties) {
+    var nbp = new WireMockServer(options().dynamicPort());
+    nbp.start();
+    nbp.stubFor(get(urlPathEqualTo("/exchangerates/tables/C"))
+        .willReturn(okJson(readResource(NBP_RATES))));
+
+    var arguments = new LinkedHashMap<String, String>();
+    arguments.put("spring.datasource.url",
+        "jdbc:h2:mem:benchmark-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+    arguments.put("feign.nbp.url", "http://localhost:" + nbp.port());
+    arguments.put("logging.level.root", "WARN");
+    for (String property : properties) {
+      var separator = property.indexOf('=');
+      arguments.put(property.substring(0, separator), property.substring(separator + 1));
+    }
+    var context = new SpringApplicationBuilder(CurrencyExchangeApplication.class)
+        .web(WebApplicationType.NONE)
+        .logStartupInfo(false)
+        .run(arguments.entrySet().stream()
+            .map(argument -> "--" + argument.getKey() + "=" + argument.getValue())
+            .toArray(String[]::new));
+    return new BenchmarkApplication(nbp, context);
+  }
+
+  public <T> T getBean(Class<T> type) {
+    return context.getBean(type);
+  }
+
+  @Override
+  public void close() {
+    context.close();
+    nbp.stop();
+  }
+
+  private static String readResource(String path) {
+    try (InputStream inputStream = new ClassPathResource(path).getInputStream()) {
+      return new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
@@ -0,0 +1,107 @@
+package pl.nn.currencyexchange.benchmark;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+import pl.nn.currencyexchange.domain.enums.Currency;
+import pl.nn.currencyexchange.domain.enums.ExchangeStatus;
+import pl.nn.currencyexchange.domain.model.ExchangeOrder;
+import pl.nn.currencyexchange.domain.repository.AccountRepository;
+
+/**
+ * Latency of an event-sourced exchange as the snapshot interval grows. Every account starts with
+ * a ledger tail of random length below the interval, so that the measured exchanges replay the
+ * same number of entries on average as in a steady state, about half of the interval.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class EventReplayBenchmark {
+
+  private static final String ACCOUNT_ID = "00000000-0000-0000-0002-%012d";
+  private static final int ACCOUNTS = 100;
+
+  @Param({"10", "100", "1000", "10000"})
+  private int snapshotInterval;
+
+  private BenchmarkApplication application;
+  private AccountRepository accountRepository;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    application = BenchmarkApplication.start(
+        "exchange.mode=EVENT_SOURCED",
+        "exchange.event-sourcing.snapshot-interval=" + snapshotInterval,
+        "exchange.event-sourcing.projection-interval=PT1H");
+    accountRepository = application.getBean(AccountRepository.class);
+    var jdbcTemplate = application.getBean(JdbcTemplate.class);
+    jdbcTemplate.update("INSERT INTO owner (id, first_name, last_name) "
+        + "SELECT " + uuid("0001") + ", 'Jan', 'Kowalski' FROM SYSTEM_RANGE(1, ?)", ACCOUNTS);
+    jdbcTemplate.update("INSERT INTO account (id, owner_id) "
+        + "SELECT " + uuid("0002") + ", " + uuid("0001") + " FROM SYSTEM_RANGE(1, ?)", ACCOUNTS);
+    jdbcTemplate.update("INSERT INTO currency_balance (id, currency, amount, account_id) "
+        + "SELECT " + uuid("0003") + ", 'PLN', 1000000.00, " + uuid("0002")
+        + " FROM SYSTEM_RANGE(1, ?)", ACCOUNTS);
+    jdbcTemplate.update("INSERT INTO balance_snapshot (account_id, currency, amount, ledger_id) "
+        + "SELECT " + uuid("0002") + ", 'PLN', 1000000.00, 0 FROM SYSTEM_RANGE(1, ?)", ACCOUNTS);
+    jdbcTemplate.update("INSERT INTO balance_projection (account_id, ledger_id) "
+        + "SELECT " + uuid("0002") + ", 0 FROM SYSTEM_RANGE(1, ?)", ACCOUNTS);
+    var random = new Random(42);
+    for (int account = 1; account <= ACCOUNTS; account++) {
+      jdbcTemplate.update("INSERT INTO exchange_transaction (account_id, source_currency, "
+              + "source_amount, target_currency, target_amount, price, rate, "
+              + "rate_effective_date) "
+              + "SELECT ?, 'PLN', 0.04, 'USD', 0.01, 4.0311, 4.0311, DATE '2024-11-04' "
+              + "FROM SYSTEM_RANGE(1, ?)",
+          accountId(account), random.nextInt(snapshotInterval));
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    application.close();
+  }
+
+  @Benchmark
+  public List<ExchangeStatus> appendExchange() {
+    return accountRepository.appendExchanges(List.of(ExchangeOrder.builder()
+        .accountId(accountId(ThreadLocalRandom.current().nextInt(1, ACCOUNTS + 1)))
+        .sourceCurrency(Currency.PLN)
+        .sourceAmount(new BigDecimal("0.04"))
+        .targetCurrency(Currency.USD)
+        .targetAmount(new BigDecimal("0.01"))
+        .price(new BigDecimal("4.0311"))
+        .rate(new BigDecimal("4.0311"))
+        .rateEffectiveDate(LocalDate.of(2024, 11, 4))
+        .build()));
+  }
+
+  private static UUID accountId(int number) {
+    return UUID.fromString(String.format(ACCOUNT_ID, number));
+  }
+
+  private static String uuid(String group) {
+    return "CAST('00000000-0000-0000-" + group + "-' || LPAD(CAST(X AS VARCHAR), 12, '0') AS UUID)";
+  }
+}
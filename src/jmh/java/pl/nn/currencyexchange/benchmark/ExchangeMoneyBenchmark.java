@@ -0,0 +1,133 @@
+package pl.nn.currencyexchange.benchmark;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import pl.nn.currencyexchange.application.rest.dto.AccountBalanceQuery;
+import pl.nn.currencyexchange.application.rest.dto.CreateAccountCommand;
+import pl.nn.currencyexchange.application.rest.dto.ExchangeMoneyCommand;
+import pl.nn.currencyexchange.domain.enums.Currency;
+import pl.nn.currencyexchange.domain.exception.ExchangeConflictException;
+import pl.nn.currencyexchange.domain.service.AccountService;
+import pl.nn.currencyexchange.infrastucture.configuration.properties.ExchangeProperties;
+
+/**
+ * Full exchange and balance paths through {@link AccountService} against in-memory H2, with
+ * exchange rates served from the cache after the first NBP call. Run with {@code -t} to add
+ * contention; accounts are picked at random for every operation. {@link #buyUsdOnSameAccount()}
+ * makes all threads exchange on one account, comparing the striped in-memory locks with locking
+ * in the database only. Exchanges abandoned after version conflicts are counted separately.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ExchangeMoneyBenchmark {
+
+  private static final ExchangeMoneyCommand BUY_USD = ExchangeMoneyCommand.builder()
+      .currency(Currency.USD)
+      .amount(new BigDecimal("10.00"))
+      .build();
+
+  /**
+   * Bought for every account up front, so that selling does not run out of USD.
+   */
+  private static final ExchangeMoneyCommand STOCK_USD = ExchangeMoneyCommand.builder()
+      .currency(Currency.USD)
+      .amount(new BigDecimal("1000000.00"))
+      .build();
+
+  private static final ExchangeMoneyCommand SELL_USD = ExchangeMoneyCommand.builder()
+      .currency(Currency.PLN)
+      .amount(new BigDecimal("1.00"))
+      .build();
+
+  @Param({"ATOMIC", "OPTIMISTIC"})
+  private ExchangeProperties.Mode mode;
+
+  @Param({"OFF", "STRIPED"})
+  private ExchangeProperties.LockingMode lockingMode;
+
+  @Param({"1024"})
+  private int accounts;
+
+  private BenchmarkApplication application;
+  private AccountService accountService;
+  private UUID[] accountIds;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    application = BenchmarkApplication.start("exchange.mode=" + mode,
+        "exchange.locking.mode=" + lockingMode);
+    accountService = application.getBean(AccountService.class);
+    accountIds = new UUID[accounts];
+    for (int i = 0; i < accounts; i++) {
+      accountIds[i] = accountService.createNewAccount(CreateAccountCommand.builder()
+          .firstName("Jan")
+          .lastName("Kowalski")
+          .balance(new BigDecimal("1000000000.00"))
+          .build());
+      accountService.exchangeMoney(accountIds[i], STOCK_USD);
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    application.close();
+  }
+
+  @Benchmark
+  public AccountBalanceQuery buyUsd() {
+    return accountService.exchangeMoney(randomAccount(), BUY_USD);
+  }
+
+  @Benchmark
+  public AccountBalanceQuery sellUsd() {
+    return accountService.exchangeMoney(randomAccount(), SELL_USD);
+  }
+
+  @Benchmark
+  @Threads(8)
+  public AccountBalanceQuery buyUsdOnSameAccount(Outcomes outcomes) {
+    try {
+      return accountService.exchangeMoney(accountIds[0], BUY_USD);
+    } catch (ExchangeConflictException e) {
+      outcomes.conflicts++;
+      return null;
+    }
+  }
+
+  @Benchmark
+  public AccountBalanceQuery getAccountBalance() {
+    return accountService.getAccountBalance(randomAccount());
+  }
+
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  public static class Outcomes {
+
+    public long conflicts;
+  }
+
+  private UUID randomAccount() {
+    return accountIds[ThreadLocalRandom.current().nextInt(accountIds.length)];
+  }
+}
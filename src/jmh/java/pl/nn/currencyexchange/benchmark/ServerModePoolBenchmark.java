@@ -0,0 +1,97 @@
+package pl.nn.currencyexchange.benchmark;
+
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.h2.tools.Server;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import pl.nn.currencyexchange.application.rest.dto.AccountBalanceQuery;
+import pl.nn.currencyexchange.application.rest.dto.CreateAccountCommand;
+import pl.nn.currencyexchange.application.rest.dto.ExchangeMoneyCommand;
+import pl.nn.currencyexchange.domain.enums.Currency;
+import pl.nn.currencyexchange.domain.service.AccountService;
+
+/**
+ * Exchanges on random accounts from 16 threads against H2 in server mode, with the
+ * {@code server} profile and a growing connection pool. Every statement is a round trip to the
+ * TCP server, so throughput is expected to grow with the number of connections until the server
+ * is saturated. This is not verified yet, the only results so far come from a single core shared
+ * by the server, the application and the benchmark threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(16)
+@Fork(1)
+public class ServerModePoolBenchmark {
+
+  private static final ExchangeMoneyCommand BUY_USD = ExchangeMoneyCommand.builder()
+      .currency(Currency.USD)
+      .amount(new BigDecimal("10.00"))
+      .build();
+
+  @Param({"2", "4", "16"})
+  private int poolSize;
+
+  @Param({"1024"})
+  private int accounts;
+
+  private Server server;
+  private BenchmarkApplication application;
+  private AccountService accountService;
+  private UUID[] accountIds;
+
+  @Setup(Level.Trial)
+  public void setUp() throws SQLException {
+    server = Server.createTcpServer("-tcpPort", "0", "-ifNotExists").start();
+    application = BenchmarkApplication.start(
+        "spring.profiles.active=server",
+        "spring.datasource.url=jdbc:h2:tcp://localhost:" + server.getPort()
+            + "/mem:benchmark-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1",
+        "spring.datasource.password=benchmark",
+        "spring.datasource.hikari.maximum-pool-size=" + poolSize,
+        "spring.datasource.hikari.minimum-idle=" + poolSize,
+        "spring.threads.virtual.enabled=false");
+    accountService = application.getBean(AccountService.class);
+    accountIds = new UUID[accounts];
+    for (int i = 0; i < accounts; i++) {
+      accountIds[i] = accountService.createNewAccount(CreateAccountCommand.builder()
+          .firstName("Jan")
+          .lastName("Kowalski")
+          .balance(new BigDecimal("1000000000.00"))
+          .build());
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    application.close();
+    server.stop();
+  }
+
+  @Benchmark
+  public AccountBalanceQuery buyUsd() {
+    return accountService.exchangeMoney(randomAccount(), BUY_USD);
+  }
+
+  private UUID randomAccount() {
+    return accountIds[ThreadLocalRandom.current().nextInt(accountIds.length)];
+  }
+}
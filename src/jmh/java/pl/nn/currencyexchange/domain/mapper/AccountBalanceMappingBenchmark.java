@@ -0,0 +1,83 @@
+package pl.nn.currencyexchange.domain.mapper;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import pl.nn.currencyexchange.application.rest.dto.AccountBalanceQuery;
+import pl.nn.currencyexchange.domain.entity.Account;
+import pl.nn.currencyexchange.domain.entity.CurrencyBalance;
+import pl.nn.currencyexchange.domain.entity.Owner;
+import pl.nn.currencyexchange.domain.enums.Currency;
+
+/**
+ * Mapping of an account to the balance response and its JSON serialization, the CPU part of
+ * every balance and exchange request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AccountBalanceMappingBenchmark {
+
+  private AccountMapper accountMapper;
+  private ObjectMapper objectMapper;
+  private Account account;
+  private AccountBalanceQuery balance;
+
+  @Setup
+  public void setUp() {
+    accountMapper = new AccountMapperImpl();
+    objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    account = Account.builder()
+        .id(UUID.randomUUID())
+        .owner(Owner.builder()
+            .id(UUID.randomUUID())
+            .firstName("Jan")
+            .lastName("Kowalski")
+            .build())
+        .wallet(List.of(
+            CurrencyBalance.builder()
+                .id(UUID.randomUUID())
+                .currency(Currency.PLN)
+                .amount(new BigDecimal("959.69"))
+                .build(),
+            CurrencyBalance.builder()
+                .id(UUID.randomUUID())
+                .currency(Currency.USD)
+                .amount(new BigDecimal("10.00"))
+                .build()))
+        .build();
+    balance = accountMapper.map(account);
+  }
+
+  @Benchmark
+  public AccountBalanceQuery map() {
+    return accountMapper.map(account);
+  }
+
+  @Benchmark
+  public byte[] serialize() throws JsonProcessingException {
+    return objectMapper.writeValueAsBytes(balance);
+  }
+
+  @Benchmark
+  public byte[] mapAndSerialize() throws JsonProcessingException {
+    return objectMapper.writeValueAsBytes(accountMapper.map(account));
+  }
+}
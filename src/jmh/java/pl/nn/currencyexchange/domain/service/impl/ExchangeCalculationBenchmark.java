@@ -0,0 +1,111 @@
+package pl.nn.currencyexchange.domain.service.impl;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import pl.nn.currencyexchange.application.rest.dto.ExchangeMoneyCommand;
+import pl.nn.currencyexchange.domain.entity.Account;
+import pl.nn.currencyexchange.domain.entity.CurrencyBalance;
+import pl.nn.currencyexchange.domain.enums.Currency;
+import pl.nn.currencyexchange.domain.model.ExchangeRateMatrix;
+import pl.nn.currencyexchange.domain.model.Money;
+
+/**
+ * Exchange arithmetic and the balance check performed for every exchange request, next to the
+ * {@link BigDecimal} calculation they replaced. Run with {@code -prof gc} to compare allocations.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExchangeCalculationBenchmark {
+
+  private AccountServiceImpl accountService;
+  private ExchangeRateMatrix rates;
+  private ExchangeMoneyCommand buyUsdCommand;
+  private ExchangeMoneyCommand sellUsdCommand;
+  private ExchangeMoneyCommand crossCommand;
+  private Account account;
+  private Money exchangedValue;
+  private BigDecimal usdRate;
+  private BigDecimal balance;
+
+  @Setup
+  public void setUp() {
+    accountService = new AccountServiceImpl(null, null, null, null, null, null, null, null);
+    rates = ExchangeRateMatrix.of(LocalDate.now(),
+        Map.of(Currency.USD, new BigDecimal("3.9513"), Currency.EUR, new BigDecimal("4.3110")),
+        Map.of(Currency.USD, new BigDecimal("4.0311"), Currency.EUR, new BigDecimal("4.3980")));
+    buyUsdCommand = ExchangeMoneyCommand.builder()
+        .currency(Currency.USD)
+        .amount(new BigDecimal("10.00"))
+        .build();
+    sellUsdCommand = ExchangeMoneyCommand.builder()
+        .currency(Currency.PLN)
+        .amount(new BigDecimal("50.00"))
+        .build();
+    crossCommand = ExchangeMoneyCommand.builder()
+        .sourceCurrency(Currency.USD)
+        .currency(Currency.EUR)
+        .amount(new BigDecimal("20.00"))
+        .build();
+    var wallet = new ArrayList<CurrencyBalance>();
+    for (int i = Currency.values().length - 1; i >= 0; i--) {
+      wallet.add(CurrencyBalance.builder()
+          .currency(Currency.values()[i])
+          .amount(new BigDecimal("1000.00"))
+          .build());
+    }
+    account = Account.builder().wallet(wallet).build();
+    exchangedValue = accountService.getExchangedValue(buyUsdCommand, rates);
+    usdRate = rates.getRate(Currency.PLN, Currency.USD);
+    balance = new BigDecimal("1000.00");
+  }
+
+  @Benchmark
+  public Money buyUsdValue() {
+    return accountService.getExchangedValue(buyUsdCommand, rates);
+  }
+
+  @Benchmark
+  public Money sellUsdValue() {
+    return accountService.getExchangedValue(sellUsdCommand, rates);
+  }
+
+  @Benchmark
+  public Money crossRateValue() {
+    return accountService.getExchangedValue(crossCommand, rates);
+  }
+
+  @Benchmark
+  public Account verifyBalance() {
+    accountService.verifyBalance(account, exchangedValue);
+    return account;
+  }
+
+  @Benchmark
+  public BigDecimal buyUsdValueBigDecimal() {
+    return buyUsdCommand.getAmount().multiply(usdRate)
+        .setScale(ExchangeRateMatrix.AMOUNT_SCALE, RoundingMode.HALF_UP);
+  }
+
+  @Benchmark
+  public boolean verifyBalanceBigDecimal() {
+    return balance.compareTo(buyUsdValueBigDecimal()) < 0;
+  }
+}
@@ -1,33 +1,107 @@
 package pl.nn.currencyexchange.application.rest.controller;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Operation;
 import jakarta.validation.Valid;
+import jakarta.validation.ValidationException;
+import jakarta.validation.Validator;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.Size;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Objects;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import pl.nn.currencyexchange.application.rest.dto.AccountBalanceQuery;
+import pl.nn.currencyexchange.application.rest.dto.AccountTransactionsQuery;
+import pl.nn.currencyexchange.application.rest.dto.BatchExchangeMoneyCommand;
+import pl.nn.currencyexchange.application.rest.dto.BatchExchangeMoneyQuery;
+import pl.nn.currencyexchange.application.rest.dto.BulkCreateAccountCommand;
 import pl.nn.currencyexchange.application.rest.dto.CreateAccountCommand;
 import pl.nn.currencyexchange.application.rest.dto.ExchangeMoneyCommand;
 import pl.nn.currencyexchange.domain.service.AccountService;
+import pl.nn.currencyexchange.domain.service.impl.IdempotentRequests;
 
 @RestController
 @RequestMapping("/account")
 @RequiredArgsConstructor
 public class AccountController {
 
+  public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
+  private static final String INVALID_LINE_ERROR = "Invalid account in line [%s]: %s";
+  private static final String TOO_MANY_ACCOUNTS_ERROR = "Too many accounts, limit: [%s]";
+  private static final int MAX_PAGE_SIZE = 500;
+  private static final int MAX_IDEMPOTENCY_KEY_LENGTH = 255;
+
   private final AccountService accountService;
+  private final ObjectMapper objectMapper;
+  private final Validator validator;
+  private final IdempotentRequests idempotentRequests;
 
-  @Operation(summary = "Utworzenie nowego konta walutowego.")
+  @Operation(summary = "Utworzenie nowego konta walutowego (ponowione żądanie z tym samym "
+      + "nagłówkiem Idempotency-Key zwraca identyfikator utworzonego wcześniej konta, a z inną "
+      + "treścią jest odrzucane ze statusem 422).")
   @PostMapping("/create")
-  public ResponseEntity<UUID> createAccount(@RequestBody @Valid CreateAccountCommand command) {
-    return new ResponseEntity<>(accountService.createNewAccount(command), HttpStatus.CREATED);
+  public ResponseEntity<UUID> createAccount(
+      @RequestHeader(name = IDEMPOTENCY_KEY_HEADER, required = false)
+      @Size(max = MAX_IDEMPOTENCY_KEY_LENGTH) String idempotencyKey,
+      @RequestBody @Valid CreateAccountCommand command) {
+    var accountId = idempotentRequests.execute(
+        idempotencyKey == null ? null : "create:" + idempotencyKey, command, UUID.class,
+        () -> accountService.createNewAccount(command));
+    return new ResponseEntity<>(accountId, HttpStatus.CREATED);
+  }
+
+  @Operation(summary = "Utworzenie wielu kont walutowych w jednej transakcji (identyfikatory "
+      + "zwracane w kolejności żądania).")
+  @PostMapping(value = "/create/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<List<UUID>> createAccounts(
+      @RequestBody @Valid BulkCreateAccountCommand command) {
+    return new ResponseEntity<>(accountService.createNewAccounts(command.getAccounts().stream()),
+        HttpStatus.CREATED);
+  }
+
+  @Operation(summary = "Utworzenie wielu kont walutowych ze strumienia NDJSON (jedno konto w "
+      + "każdej linii, najwyżej 10000 kont). Żądanie jest wczytywane i walidowane przed "
+      + "otwarciem transakcji.")
+  @PostMapping(value = "/create/bulk", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+  public ResponseEntity<List<UUID>> createAccountsFromStream(InputStream body)
+      throws IOException {
+    List<CreateAccountCommand> commands;
+    try (var reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+      var lineNumber = new AtomicInteger();
+      commands = reader.lines()
+          .map(line -> readCommand(line, lineNumber.incrementAndGet()))
+          .filter(Objects::nonNull)
+          .limit(BulkCreateAccountCommand.MAX_ACCOUNTS + 1L)
+          .toList();
+    }
+    if (commands.size() > BulkCreateAccountCommand.MAX_ACCOUNTS) {
+      throw new ValidationException(
+          String.format(TOO_MANY_ACCOUNTS_ERROR, BulkCreateAccountCommand.MAX_ACCOUNTS));
+    }
+    return new ResponseEntity<>(accountService.createNewAccounts(commands.stream()),
+        HttpStatus.CREATED);
   }
 
   @Operation(summary = "Pobranie danych konta wraz z saldami we wszystkich posiadanych walutach.")
@@ -36,10 +110,63 @@ public class AccountController {
     return accountService.getAccountBalance(accountId);
   }
 
-  @Operation(summary = "Wymiana waluty (wymagane wskazanie waluty źródłowej i docelowej).")
+  @Operation(summary = "Historia wymian na koncie od najnowszej, stronicowana kursorem "
+      + "(identyfikator ostatniej odczytanej wymiany).")
+  @GetMapping("/{accountId}/transactions")
+  public AccountTransactionsQuery getAccountTransactions(
+      @PathVariable UUID accountId,
+      @RequestParam(required = false) Long cursor,
+      @RequestParam(defaultValue = "50") @Min(1) @Max(MAX_PAGE_SIZE) int size) {
+    return accountService.getAccountTransactions(accountId, cursor, size);
+  }
+
+  @Operation(summary = "Wymiana waluty (wymagane wskazanie waluty źródłowej i docelowej). "
+      + "Ponowione żądanie z tym samym nagłówkiem Idempotency-Key zwraca wynik pierwszej "
+      + "wymiany bez ponownego jej wykonania, a z inną treścią jest odrzucane ze statusem 422.")
   @PostMapping("/{accountId}/exchange")
-  public AccountBalanceQuery exchangeMoney(@PathVariable UUID accountId,
-                                           @RequestBody @Valid ExchangeMoneyCommand command) {
-    return accountService.exchangeMoney(accountId, command);
+  public AccountBalanceQuery exchangeMoney(
+      @PathVariable UUID accountId,
+      @RequestHeader(name = IDEMPOTENCY_KEY_HEADER, required = false)
+      @Size(max = MAX_IDEMPOTENCY_KEY_LENGTH) String idempotencyKey,
+      @RequestBody @Valid ExchangeMoneyCommand command) {
+    return idempotentRequests.execute(
+        idempotencyKey == null ? null : "exchange:" + accountId + ":" + idempotencyKey,
+        command, AccountBalanceQuery.class, accountService::getExchangeRates,
+        exchangeRates -> accountService.exchangeMoney(accountId, command, exchangeRates));
+  }
+
+  @Operation(summary = "Wymiana walut dla wielu zleceń w jednej transakcji, z wynikiem dla "
+      + "każdego zlecenia (zlecenia bez pokrycia są pomijane).")
+  @PostMapping("/exchange/batch")
+  public BatchExchangeMoneyQuery exchangeMoneyBatch(
+      @RequestBody @Valid BatchExchangeMoneyCommand command) {
+    return accountService.exchangeMoney(command);
+  }
+
+  /**
+   * Parses and validates a single NDJSON line, blank lines are skipped. Failing lines abort the
+   * whole request, so nothing is created.
+   */
+  private CreateAccountCommand readCommand(String line, int lineNumber) {
+    if (line.isBlank()) {
+      return null;
+    }
+    CreateAccountCommand command;
+    try {
+      command = objectMapper.readValue(line, CreateAccountCommand.class);
+    } catch (JsonProcessingException e) {
+      throw new ValidationException(
+          String.format(INVALID_LINE_ERROR, lineNumber, e.getOriginalMessage()), e);
+    }
+    var violations = validator.validate(command);
+    if (!violations.isEmpty()) {
+      var errors = violations.stream()
+          .map(violation -> String.format("%s: %s",
+              violation.getPropertyPath(), violation.getMessage()))
+          .sorted()
+          .collect(Collectors.joining(";"));
+      throw new ValidationException(String.format(INVALID_LINE_ERROR, lineNumber, errors));
+    }
+    return command;
   }
 }
@@ -0,0 +1,32 @@
+package pl.nn.currencyexchange.application.rest.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import java.time.LocalDate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import pl.nn.currencyexchange.application.rest.dto.ExchangeRateQuery;
+import pl.nn.currencyexchange.domain.enums.Currency;
+import pl.nn.currencyexchange.domain.service.ExchangeRateService;
+
+@RestController
+@RequestMapping("/exchange-rate")
+@RequiredArgsConstructor
+public class ExchangeRateController {
+
+  private final ExchangeRateService exchangeRateService;
+
+  @Operation(summary = "Kurs kupna i sprzedaży waluty z tabeli C NBP obowiązujący w podanym dniu "
+      + "(domyślnie dzisiaj), spośród kursów pobranych wcześniej przez aplikację.")
+  @GetMapping("/{currency}")
+  public ExchangeRateQuery getExchangeRate(
+      @PathVariable Currency currency,
+      @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+      LocalDate date) {
+    return exchangeRateService.getExchangeRate(currency, date);
+  }
+}
@@ -1,27 +1,57 @@
 package pl.nn.currencyexchange.application.rest.controller.error;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.validation.ValidationException;
 import java.util.stream.Collectors;
 import lombok.Builder;
 import lombok.Data;
+import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.method.annotation.HandlerMethodValidationException;
 import org.springframework.web.server.ResponseStatusException;
 import pl.nn.currencyexchange.domain.exception.AccountNotExistsException;
 import pl.nn.currencyexchange.domain.exception.CurrencyExchangeRatesNotFoundException;
+import pl.nn.currencyexchange.domain.exception.ExchangeConflictException;
+import pl.nn.currencyexchange.domain.exception.ExchangeRatesUnavailableException;
+import pl.nn.currencyexchange.domain.exception.IdempotencyKeyReusedException;
 import pl.nn.currencyexchange.domain.exception.NotEnoughFundsException;
 
+/**
+ * Maps exceptions to error responses and counts them in {@code api.errors}, tagged with the
+ * exception type and the returned status.
+ */
 @ControllerAdvice
+@RequiredArgsConstructor
 public class ApiExceptionHandler {
 
+  private final MeterRegistry meterRegistry;
+
   @ExceptionHandler(MethodArgumentNotValidException.class)
   public ResponseEntity<ErrorDto> handleValidationErrors(MethodArgumentNotValidException e) {
     String errorsMessage = e.getBindingResult().getFieldErrors().stream()
         .map(error -> String.format("%s: %s", error.getField(), error.getDefaultMessage()))
         .collect(Collectors.joining(";"));
-    return handleException(HttpStatus.BAD_REQUEST, errorsMessage);
+    return handleException(HttpStatus.BAD_REQUEST, e, errorsMessage);
+  }
+
+  @ExceptionHandler(HandlerMethodValidationException.class)
+  ResponseEntity<ErrorDto> handleParameterValidationErrors(HandlerMethodValidationException e) {
+    String errorsMessage = e.getAllValidationResults().stream()
+        .flatMap(result -> result.getResolvableErrors().stream()
+            .map(error -> String.format("%s: %s", result.getMethodParameter().getParameterName(),
+                error.getDefaultMessage())))
+        .collect(Collectors.joining(";"));
+    return handleException(HttpStatus.BAD_REQUEST, e, errorsMessage);
+  }
+
+  @ExceptionHandler(ValidationException.class)
+  ResponseEntity<ErrorDto> handleValidation(ValidationException e) {
+    return handleException(HttpStatus.BAD_REQUEST, e);
   }
 
   @ExceptionHandler(AccountNotExistsException.class)
@@ -35,17 +65,34 @@ public class ApiExceptionHandler {
     return handleException(HttpStatus.NOT_FOUND, e);
   }
 
+  @ExceptionHandler(ExchangeRatesUnavailableException.class)
+  ResponseEntity<ErrorDto> handleExchangeRatesUnavailable(ExchangeRatesUnavailableException e) {
+    return handleException(HttpStatus.SERVICE_UNAVAILABLE, e);
+  }
+
   @ExceptionHandler(NotEnoughFundsException.class)
   ResponseEntity<ErrorDto> handleNotEnoughFunds(NotEnoughFundsException e) {
     return handleException(HttpStatus.NOT_ACCEPTABLE, e);
   }
 
+  @ExceptionHandler(ExchangeConflictException.class)
+  ResponseEntity<ErrorDto> handleExchangeConflict(ExchangeConflictException e) {
+    return handleException(HttpStatus.CONFLICT, e);
+  }
+
+  @ExceptionHandler(IdempotencyKeyReusedException.class)
+  ResponseEntity<ErrorDto> handleIdempotencyKeyReused(IdempotencyKeyReusedException e) {
+    return handleException(HttpStatus.UNPROCESSABLE_ENTITY, e);
+  }
+
   @ExceptionHandler(ResponseStatusException.class)
   ResponseEntity<ErrorDto> handleExternalServiceNotFoundData(ResponseStatusException e) {
     return handleException(HttpStatus.NOT_FOUND, e);
   }
 
-  private ResponseEntity<ErrorDto> handleException(HttpStatus status, String message) {
+  private ResponseEntity<ErrorDto> handleException(HttpStatus status, Exception e,
+                                                   String message) {
+    countError(status, e);
     var error = ErrorDto.builder()
         .code(status.value())
         .message(message)
@@ -54,11 +101,16 @@ public class ApiExceptionHandler {
   }
 
   private ResponseEntity<ErrorDto> handleException(HttpStatus status, RuntimeException e) {
-    var error = ErrorDto.builder()
-        .code(status.value())
-        .message(e.getMessage())
-        .build();
-    return new ResponseEntity<>(error, status);
+    return handleException(status, e, e.getMessage());
+  }
+
+  private void countError(HttpStatus status, Exception e) {
+    Counter.builder("api.errors")
+        .description("Exceptions mapped to error responses")
+        .tag("exception", e.getClass().getSimpleName())
+        .tag("status", String.valueOf(status.value()))
+        .register(meterRegistry)
+        .increment();
   }
 
   @Data
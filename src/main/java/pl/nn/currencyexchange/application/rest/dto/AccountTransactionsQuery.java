@@ -0,0 +1,38 @@
+package pl.nn.currencyexchange.application.rest.dto;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import pl.nn.currencyexchange.domain.enums.Currency;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AccountTransactionsQuery {
+
+  private List<Transaction> transactions;
+  private Long nextCursor;
+
+  @Data
+  @Builder
+  @NoArgsConstructor
+  @AllArgsConstructor
+  public static class Transaction {
+
+    private Long id;
+    private Currency sourceCurrency;
+    private BigDecimal sourceAmount;
+    private Currency targetCurrency;
+    private BigDecimal targetAmount;
+    private BigDecimal price;
+    private BigDecimal rate;
+    private LocalDate rateEffectiveDate;
+    private Instant executedAt;
+  }
+}
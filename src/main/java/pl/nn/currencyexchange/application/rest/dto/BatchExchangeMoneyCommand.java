@@ -0,0 +1,62 @@
+package pl.nn.currencyexchange.application.rest.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import io.swagger.v3.oas.annotations.Parameter;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.AssertFalse;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Digits;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import pl.nn.currencyexchange.domain.enums.Currency;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchExchangeMoneyCommand {
+
+  @Valid
+  @NotEmpty
+  @Size(max = 10000)
+  @Parameter(description = "Zlecenia wymiany realizowane w podanej kolejności", required = true)
+  private List<Order> orders;
+
+  @Data
+  @Builder
+  @NoArgsConstructor
+  @AllArgsConstructor
+  public static class Order {
+
+    @NotNull
+    @Parameter(description = "Identyfikator konta", required = true)
+    private UUID accountId;
+
+    @Parameter(description = "Waluta którą płacimy (domyślnie PLN, a przy zakupie PLN - USD)")
+    private Currency sourceCurrency;
+
+    @NotNull
+    @Parameter(description = "Waluta którą chcemy nabyć", required = true)
+    private Currency currency;
+
+    @NotNull
+    @Digits(fraction = 2, integer = 10)
+    @DecimalMin(value = "1")
+    @Parameter(description = "Kwota docelowej waluty, którą chcemy nabyć", required = true)
+    private BigDecimal amount;
+
+    @JsonIgnore
+    @AssertFalse(message = "source and target currency must differ")
+    public boolean isSameCurrency() {
+      return currency != null && currency == sourceCurrency;
+    }
+  }
+}
@@ -0,0 +1,33 @@
+package pl.nn.currencyexchange.application.rest.dto;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import pl.nn.currencyexchange.domain.enums.Currency;
+import pl.nn.currencyexchange.domain.enums.ExchangeStatus;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchExchangeMoneyQuery {
+
+  private List<Result> results;
+
+  @Data
+  @Builder
+  @NoArgsConstructor
+  @AllArgsConstructor
+  public static class Result {
+
+    private UUID accountId;
+    private Currency currency;
+    private BigDecimal amount;
+    private ExchangeStatus status;
+    private String message;
+  }
+}
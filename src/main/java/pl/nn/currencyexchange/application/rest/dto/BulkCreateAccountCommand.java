@@ -0,0 +1,26 @@
+package pl.nn.currencyexchange.application.rest.dto;
+
+import io.swagger.v3.oas.annotations.Parameter;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkCreateAccountCommand {
+
+  public static final int MAX_ACCOUNTS = 10000;
+
+  @Valid
+  @NotEmpty
+  @Size(max = MAX_ACCOUNTS)
+  @Parameter(description = "Konta do utworzenia", required = true)
+  private List<CreateAccountCommand> accounts;
+}
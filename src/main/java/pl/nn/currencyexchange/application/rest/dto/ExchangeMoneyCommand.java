@@ -1,7 +1,10 @@
 package pl.nn.currencyexchange.application.rest.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import io.swagger.v3.oas.annotations.Parameter;
+import jakarta.validation.constraints.AssertFalse;
 import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Digits;
 import jakarta.validation.constraints.NotNull;
 import java.math.BigDecimal;
 import lombok.Builder;
@@ -12,11 +15,21 @@ import pl.nn.currencyexchange.domain.enums.Currency;
 @Builder
 public class ExchangeMoneyCommand {
 
+  @Parameter(description = "Waluta którą płacimy (domyślnie PLN, a przy zakupie PLN - USD)")
+  private Currency sourceCurrency;
+
   @NotNull
   @Parameter(description = "Waluta którą chcemy nabyć", required = true)
   private Currency currency;
 
+  @Digits(fraction = 2, integer = 10)
   @DecimalMin(value = "1")
   @Parameter(description = "Kwota docelowej waluty, którą chcemy nabyć")
   private BigDecimal amount;
+
+  @JsonIgnore
+  @AssertFalse(message = "source and target currency must differ")
+  public boolean isSameCurrency() {
+    return currency != null && currency == sourceCurrency;
+  }
 }
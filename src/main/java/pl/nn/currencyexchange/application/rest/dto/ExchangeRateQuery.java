@@ -0,0 +1,21 @@
+package pl.nn.currencyexchange.application.rest.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import pl.nn.currencyexchange.domain.enums.Currency;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExchangeRateQuery {
+
+  private Currency currency;
+  private LocalDate effectiveDate;
+  private BigDecimal bid;
+  private BigDecimal ask;
+}
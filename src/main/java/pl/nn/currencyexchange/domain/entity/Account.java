@@ -8,22 +8,28 @@ import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.OneToMany;
 import jakarta.persistence.OneToOne;
+import jakarta.persistence.PostLoad;
 import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
-import lombok.AllArgsConstructor;
+import lombok.AccessLevel;
 import lombok.Builder;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.ToString;
+import pl.nn.currencyexchange.domain.enums.Currency;
 
 @Entity
 @Table(name = "account")
 @Data
-@Builder
 @NoArgsConstructor
-@AllArgsConstructor
 @EqualsAndHashCode
 @ToString
 public class Account {
@@ -32,10 +38,67 @@ public class Account {
   @GeneratedValue(strategy = GenerationType.UUID)
   private UUID id;
 
+  /**
+   * Changed only through {@link #setWallet(List)} and {@link #addBalance(CurrencyBalance)}, which
+   * keep {@link #balancesByCurrency} in sync.
+   */
   @OneToMany(mappedBy = "account", cascade = CascadeType.ALL)
   private List<CurrencyBalance> wallet;
 
   @OneToOne(cascade = CascadeType.ALL)
   @JoinColumn(name = "owner_id", referencedColumnName = "id")
   private Owner owner;
+
+  /**
+   * Balances of the wallet indexed by currency, rebuilt whenever the whole wallet is set or
+   * loaded.
+   */
+  @Transient
+  @Getter(AccessLevel.NONE)
+  @EqualsAndHashCode.Exclude
+  @ToString.Exclude
+  private final Map<Currency, CurrencyBalance> balancesByCurrency = new EnumMap<>(Currency.class);
+
+  @Builder
+  public Account(UUID id, List<CurrencyBalance> wallet, Owner owner) {
+    this.id = id;
+    this.owner = owner;
+    setWallet(wallet);
+  }
+
+  /**
+   * @return read-only view of the wallet
+   */
+  public List<CurrencyBalance> getWallet() {
+    return wallet == null ? null : Collections.unmodifiableList(wallet);
+  }
+
+  /**
+   * Replaces the wallet of a new account, the wallet of a persisted one is changed balance by
+   * balance.
+   */
+  public void setWallet(List<CurrencyBalance> wallet) {
+    this.wallet = wallet == null ? null : new ArrayList<>(wallet);
+    indexBalances();
+  }
+
+  /**
+   * @return balance of the currency, {@code null} when the wallet does not hold it
+   */
+  public CurrencyBalance getBalance(Currency currency) {
+    return balancesByCurrency.get(currency);
+  }
+
+  public void addBalance(CurrencyBalance balance) {
+    wallet.add(balance);
+    balancesByCurrency.put(balance.getCurrency(), balance);
+  }
+
+  @PostLoad
+  void indexBalances() {
+    balancesByCurrency.clear();
+    if (wallet != null) {
+      wallet.forEach(balance -> balancesByCurrency.put(balance.getCurrency(), balance));
+    }
+  }
 }
@@ -2,12 +2,15 @@ package pl.nn.currencyexchange.domain.entity;
 
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import java.math.BigDecimal;
 import java.util.UUID;
 import lombok.AllArgsConstructor;
@@ -32,12 +35,17 @@ public class CurrencyBalance {
   @GeneratedValue(strategy = GenerationType.UUID)
   private UUID id;
 
+  @Enumerated(EnumType.STRING)
   @Column(name = "currency", nullable = false)
   private Currency currency;
 
   @Column(name = "amount", nullable = false)
   private BigDecimal amount;
 
+  @Version
+  @Column(name = "version", nullable = false)
+  private Long version;
+
   @ToString.Exclude
   @ManyToOne
   @JoinColumn(name = "account_id", nullable = false)
@@ -0,0 +1,76 @@
+package pl.nn.currencyexchange.domain.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.UUID;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+import pl.nn.currencyexchange.domain.enums.Currency;
+
+/**
+ * Entry of the append-only exchange ledger, written in the same transaction as the balance
+ * change it records and never updated afterwards. The ledger also serves as the transactional
+ * outbox of exchanges: entries of one account are appended under the lock of its balances, so
+ * they can be followed by id, as the balance projector and the history endpoint do. Ids are not in
+ * commit order across accounts.
+ */
+@Entity
+@Immutable
+@Table(name = "exchange_transaction")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExchangeTransaction {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private Long id;
+
+  @Column(name = "account_id", nullable = false)
+  private UUID accountId;
+
+  @Enumerated(EnumType.STRING)
+  @Column(name = "source_currency", nullable = false)
+  private Currency sourceCurrency;
+
+  @Column(name = "source_amount", nullable = false)
+  private BigDecimal sourceAmount;
+
+  @Enumerated(EnumType.STRING)
+  @Column(name = "target_currency", nullable = false)
+  private Currency targetCurrency;
+
+  @Column(name = "target_amount", nullable = false)
+  private BigDecimal targetAmount;
+
+  /**
+   * Price of one unit of the target currency in the source currency.
+   */
+  @Column(name = "price", nullable = false)
+  private BigDecimal price;
+
+  /**
+   * NBP rate in PLN of the foreign currency, {@code null} for pairs of two foreign currencies.
+   */
+  @Column(name = "rate")
+  private BigDecimal rate;
+
+  @Column(name = "rate_effective_date", nullable = false)
+  private LocalDate rateEffectiveDate;
+
+  @Column(name = "executed_at", nullable = false)
+  private Instant executedAt;
+}
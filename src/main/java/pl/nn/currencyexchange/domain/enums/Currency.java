@@ -1,6 +1,9 @@
 package pl.nn.currencyexchange.domain.enums;
 
+/**
+ * PLN and the currencies quoted in NBP table C. Ordinals index the exchange rate matrix.
+ */
 public enum Currency {
 
-  PLN, USD
+  PLN, USD, AUD, CAD, EUR, HUF, CHF, GBP, JPY, CZK, DKK, NOK, SEK, XDR
 }
@@ -0,0 +1,6 @@
+package pl.nn.currencyexchange.domain.enums;
+
+public enum ExchangeStatus {
+
+  EXECUTED, NOT_ENOUGH_FUNDS, ACCOUNT_NOT_FOUND
+}
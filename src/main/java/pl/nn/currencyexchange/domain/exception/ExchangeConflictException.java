@@ -0,0 +1,8 @@
+package pl.nn.currencyexchange.domain.exception;
+
+public class ExchangeConflictException extends RuntimeException {
+
+  public ExchangeConflictException(String message, Throwable cause) {
+    super(message, cause);
+  }
+}
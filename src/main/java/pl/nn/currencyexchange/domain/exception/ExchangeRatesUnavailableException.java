@@ -0,0 +1,8 @@
+package pl.nn.currencyexchange.domain.exception;
+
+public class ExchangeRatesUnavailableException extends RuntimeException {
+
+  public ExchangeRatesUnavailableException(String message) {
+    super(message);
+  }
+}
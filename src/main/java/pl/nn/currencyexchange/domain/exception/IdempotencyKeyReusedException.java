@@ -0,0 +1,8 @@
+package pl.nn.currencyexchange.domain.exception;
+
+public class IdempotencyKeyReusedException extends RuntimeException {
+
+  public IdempotencyKeyReusedException(String message) {
+    super(message);
+  }
+}
@@ -2,10 +2,14 @@ package pl.nn.currencyexchange.domain.mapper;
 
 import org.mapstruct.Mapper;
 import pl.nn.currencyexchange.application.rest.dto.AccountBalanceQuery;
+import pl.nn.currencyexchange.application.rest.dto.AccountTransactionsQuery;
 import pl.nn.currencyexchange.domain.entity.Account;
+import pl.nn.currencyexchange.domain.entity.ExchangeTransaction;
 
 @Mapper(componentModel = "spring")
 public interface AccountMapper {
 
   AccountBalanceQuery map(Account account);
+
+  AccountTransactionsQuery.Transaction map(ExchangeTransaction transaction);
 }
@@ -0,0 +1,11 @@
+package pl.nn.currencyexchange.domain.mapper;
+
+import org.mapstruct.Mapper;
+import pl.nn.currencyexchange.application.rest.dto.ExchangeRateQuery;
+import pl.nn.currencyexchange.domain.model.ExchangeRate;
+
+@Mapper(componentModel = "spring")
+public interface ExchangeRateMapper {
+
+  ExchangeRateQuery map(ExchangeRate rate);
+}
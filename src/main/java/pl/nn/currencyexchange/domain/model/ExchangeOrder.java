@@ -0,0 +1,30 @@
+package pl.nn.currencyexchange.domain.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.UUID;
+import lombok.Builder;
+import lombok.Data;
+import pl.nn.currencyexchange.domain.enums.Currency;
+
+@Data
+@Builder
+public class ExchangeOrder {
+
+  private UUID accountId;
+  private Currency sourceCurrency;
+  private BigDecimal sourceAmount;
+  private Currency targetCurrency;
+  private BigDecimal targetAmount;
+
+  /**
+   * Price of one unit of the target currency in the source currency.
+   */
+  private BigDecimal price;
+
+  /**
+   * NBP rate in PLN of the foreign currency, {@code null} for pairs of two foreign currencies.
+   */
+  private BigDecimal rate;
+  private LocalDate rateEffectiveDate;
+}
@@ -0,0 +1,24 @@
+package pl.nn.currencyexchange.domain.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import pl.nn.currencyexchange.domain.enums.Currency;
+
+/**
+ * Bid and ask rate of a foreign currency in PLN, as quoted in NBP table C on the effective date.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExchangeRate {
+
+  private Currency currency;
+  private LocalDate effectiveDate;
+  private BigDecimal bid;
+  private BigDecimal ask;
+}
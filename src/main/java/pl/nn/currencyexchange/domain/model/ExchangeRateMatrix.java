@@ -0,0 +1,183 @@
+package pl.nn.currencyexchange.domain.model;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import lombok.Getter;
+import pl.nn.currencyexchange.domain.enums.Currency;
+import pl.nn.currencyexchange.domain.exception.CurrencyExchangeRatesNotFoundException;
+
+/**
+ * Prices of every currency pair, precomputed from a single NBP table and indexed by currency
+ * ordinals, so that a conversion reads the array instead of looking up or fetching rates. Prices
+ * which are exact at {@link #RATE_SCALE} are also kept unscaled as {@code long}, for conversions
+ * of {@link Money}. Foreign currencies are bought at their ask rate and sold at their bid rate,
+ * pairs of two foreign currencies are crossed via PLN. An amount is always converted with a single
+ * rounding, so that selling a foreign currency divides by its bid instead of multiplying by a
+ * rounded reciprocal.
+ */
+public final class ExchangeRateMatrix {
+
+  /**
+   * Scale of the precomputed prices, well beyond the 4 decimal places of NBP rates.
+   */
+  public static final int RATE_SCALE = 10;
+
+  /**
+   * Scale of converted amounts, before they are rounded to the scale of balances.
+   */
+  public static final int AMOUNT_SCALE = Money.SCALE;
+
+  private static final String RATES_NOT_FOUND_ERROR =
+      "Unable to resolve exchange rates for currency [%s]";
+
+  @Getter
+  private final LocalDate effectiveDate;
+
+  /**
+   * NBP rates in PLN of the currencies, indexed by their ordinals, {@code null} when not quoted.
+   */
+  private final BigDecimal[] bids;
+  private final BigDecimal[] asks;
+
+  /**
+   * Price of one unit of the target currency in the source currency, indexed by the ordinals of
+   * the source and the target currency, {@code null} when either one is not quoted.
+   */
+  private final BigDecimal[][] rates;
+
+  /**
+   * Unscaled values of {@link #rates} at {@link #RATE_SCALE}, {@code 0} when not quoted, when the
+   * price is rounded or when it does not fit in a {@code long}.
+   */
+  private final long[][] prices;
+
+  private ExchangeRateMatrix(LocalDate effectiveDate, BigDecimal[] bids, BigDecimal[] asks,
+                             BigDecimal[][] rates, long[][] prices) {
+    this.effectiveDate = effectiveDate;
+    this.bids = bids;
+    this.asks = asks;
+    this.rates = rates;
+    this.prices = prices;
+  }
+
+  /**
+   * @param rates rates of a single table, effective on the latest of their dates
+   */
+  public static ExchangeRateMatrix of(List<ExchangeRate> rates) {
+    var bids = new EnumMap<Currency, BigDecimal>(Currency.class);
+    var asks = new EnumMap<Currency, BigDecimal>(Currency.class);
+    rates.forEach(rate -> {
+      bids.put(rate.getCurrency(), rate.getBid());
+      asks.put(rate.getCurrency(), rate.getAsk());
+    });
+    var effectiveDate = rates.stream()
+        .map(ExchangeRate::getEffectiveDate)
+        .max(Comparator.naturalOrder())
+        .orElse(null);
+    return of(effectiveDate, bids, asks);
+  }
+
+  /**
+   * @param bids rates at which NBP buys the foreign currencies, in PLN
+   * @param asks rates at which NBP sells the foreign currencies, in PLN
+   */
+  public static ExchangeRateMatrix of(LocalDate effectiveDate, Map<Currency, BigDecimal> bids,
+                                      Map<Currency, BigDecimal> asks) {
+    var currencies = Currency.values();
+    var bidsByOrdinal = new BigDecimal[currencies.length];
+    var asksByOrdinal = new BigDecimal[currencies.length];
+    bidsByOrdinal[Currency.PLN.ordinal()] = BigDecimal.ONE;
+    asksByOrdinal[Currency.PLN.ordinal()] = BigDecimal.ONE;
+    bids.forEach((currency, bid) -> bidsByOrdinal[currency.ordinal()] = bid);
+    asks.forEach((currency, ask) -> asksByOrdinal[currency.ordinal()] = ask);
+
+    var rates = new BigDecimal[currencies.length][currencies.length];
+    var prices = new long[currencies.length][currencies.length];
+    for (int source = 0; source < currencies.length; source++) {
+      for (int target = 0; target < currencies.length; target++) {
+        var bid = bidsByOrdinal[source];
+        var ask = asksByOrdinal[target];
+        if (source == target) {
+          rates[source][target] = BigDecimal.ONE;
+        } else if (bid != null && ask != null && bid.signum() > 0) {
+          rates[source][target] = ask.divide(bid, RATE_SCALE, RoundingMode.HALF_UP);
+        }
+        if (rates[source][target] != null
+            && (source == target || isExact(rates[source][target], bid, ask))) {
+          var price = rates[source][target].setScale(RATE_SCALE).unscaledValue();
+          prices[source][target] = price.bitLength() < Long.SIZE ? price.longValue() : 0;
+        }
+      }
+    }
+    return new ExchangeRateMatrix(effectiveDate, bidsByOrdinal, asksByOrdinal, rates, prices);
+  }
+
+  /**
+   * @return price of one unit of the target currency in the source currency
+   */
+  public BigDecimal getRate(Currency source, Currency target) {
+    var rate = rates[source.ordinal()][target.ordinal()];
+    if (rate == null) {
+      throw notQuoted(source, target);
+    }
+    return rate;
+  }
+
+  /**
+   * @return NBP rate in PLN of the foreign currency of a pair with PLN, its bid when it is sold
+   *     and its ask when it is bought, {@code null} for pairs of two foreign currencies
+   */
+  public BigDecimal getNbpRate(Currency source, Currency target) {
+    if (source != Currency.PLN && target != Currency.PLN) {
+      return null;
+    }
+    var rate = target == Currency.PLN ? bids[source.ordinal()] : asks[target.ordinal()];
+    if (rate == null) {
+      throw notQuoted(source, target);
+    }
+    return rate;
+  }
+
+  /**
+   * @return amount of the source currency paid for the given amount of the target currency
+   */
+  public BigDecimal convert(Currency source, Currency target, BigDecimal amount) {
+    return convert(source, Money.of(amount, target)).toBigDecimal();
+  }
+
+  /**
+   * @return amount of the source currency paid for the given amount of the target currency
+   */
+  public Money convert(Currency source, Money amount) {
+    var target = amount.currency();
+    var price = prices[source.ordinal()][target.ordinal()];
+    if (price == 0) {
+      getRate(source, target);
+      return Money.of(amount.toBigDecimal().multiply(asks[target.ordinal()])
+          .divide(bids[source.ordinal()], Money.SCALE, RoundingMode.HALF_UP), source);
+    }
+    return amount.convert(price, RATE_SCALE, source);
+  }
+
+  public boolean isQuoted(Currency currency) {
+    return rates[currency.ordinal()][Currency.PLN.ordinal()] != null;
+  }
+
+  /**
+   * @return whether the price equals the quotient of the rates, so that multiplying by it rounds
+   *     only once
+   */
+  private static boolean isExact(BigDecimal price, BigDecimal bid, BigDecimal ask) {
+    return price.multiply(bid).compareTo(ask) == 0;
+  }
+
+  private CurrencyExchangeRatesNotFoundException notQuoted(Currency source, Currency target) {
+    return new CurrencyExchangeRatesNotFoundException(
+        String.format(RATES_NOT_FOUND_ERROR, isQuoted(source) ? target : source));
+  }
+}
@@ -0,0 +1,35 @@
+package pl.nn.currencyexchange.domain.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * NBP table C, bid and ask rates of foreign currencies in PLN.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExchangeRatesTable {
+
+  private String table;
+  private String no;
+  private LocalDate effectiveDate;
+  private List<Rate> rates;
+
+  @Data
+  @Builder
+  @NoArgsConstructor
+  @AllArgsConstructor
+  public static class Rate {
+
+    private String code;
+    private BigDecimal bid;
+    private BigDecimal ask;
+  }
+}
@@ -0,0 +1,107 @@
+package pl.nn.currencyexchange.domain.model;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import pl.nn.currencyexchange.domain.enums.Currency;
+
+/**
+ * Amount of a currency held as a count of ten-thousandths, so that exchange arithmetic runs on
+ * {@code long} instead of allocating {@link BigDecimal} intermediates. Amounts are converted to
+ * and from {@link BigDecimal} only at the JPA and JSON edges.
+ *
+ * <p>Rounding rules: conversion from {@link BigDecimal} is exact and rejects amounts with more
+ * than {@value #SCALE} decimal places, addition and subtraction are exact, and conversion at an
+ * exchange rate rounds half up to {@value #SCALE} decimal places. Overflow is never silent: it
+ * throws {@link ArithmeticException}.
+ *
+ * @param units amount in ten-thousandths of the currency
+ */
+public record Money(long units, Currency currency) {
+
+  /**
+   * Decimal places of an amount, the scale exchanged amounts are computed at.
+   */
+  public static final int SCALE = 4;
+
+  /**
+   * Decimal places of a stored balance and ledger amount. Amounts of an exchange order are
+   * rounded half up to it once, when the order is created, so that the funds check, the debit and
+   * the credit all use the same value.
+   */
+  public static final int BALANCE_SCALE = 2;
+
+  private static final String CURRENCY_MISMATCH_ERROR =
+      "Unable to combine amounts of different currencies [%s] and [%s]";
+
+  private static final long[] POWERS_OF_TEN = {
+      1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L, 10_000_000L, 100_000_000L,
+      1_000_000_000L, 10_000_000_000L, 100_000_000_000L, 1_000_000_000_000L,
+      10_000_000_000_000L, 100_000_000_000_000L, 1_000_000_000_000_000L,
+      10_000_000_000_000_000L, 100_000_000_000_000_000L, 1_000_000_000_000_000_000L
+  };
+
+  /**
+   * @throws ArithmeticException when the amount has more than {@value #SCALE} decimal places or
+   *                             does not fit in a {@code long}
+   */
+  public static Money of(BigDecimal amount, Currency currency) {
+    return new Money(amount.movePointRight(SCALE).longValueExact(), currency);
+  }
+
+  public static Money zero(Currency currency) {
+    return new Money(0, currency);
+  }
+
+  public BigDecimal toBigDecimal() {
+    return BigDecimal.valueOf(units, SCALE);
+  }
+
+  public Money plus(Money other) {
+    requireSameCurrency(other);
+    return new Money(Math.addExact(units, other.units), currency);
+  }
+
+  public Money minus(Money other) {
+    requireSameCurrency(other);
+    return new Money(Math.subtractExact(units, other.units), currency);
+  }
+
+  public boolean isLessThan(Money other) {
+    requireSameCurrency(other);
+    return units < other.units;
+  }
+
+  /**
+   * Converts into another currency at the price of one unit of this currency, rounding half up.
+   * The exact product is computed in 128 bits and only falls back to {@link BigDecimal} when it
+   * does not fit in a {@code long}.
+   *
+   * @param price      price of one unit of this currency in the target one, as an unscaled value
+   * @param priceScale decimal places of the price
+   */
+  public Money convert(long price, int priceScale, Currency target) {
+    var high = Math.multiplyHigh(units, price);
+    var product = units * price;
+    if ((high != 0 || product < 0) && (high != -1 || product >= 0)) {
+      return new Money(BigDecimal.valueOf(units)
+          .multiply(BigDecimal.valueOf(price))
+          .movePointLeft(priceScale)
+          .setScale(0, RoundingMode.HALF_UP)
+          .longValueExact(), target);
+    }
+    var divisor = POWERS_OF_TEN[priceScale];
+    var quotient = product / divisor;
+    var remainder = Math.abs(product % divisor);
+    if (remainder >= divisor - remainder) {
+      quotient += Long.signum(product);
+    }
+    return new Money(quotient, target);
+  }
+
+  private void requireSameCurrency(Money other) {
+    if (currency != other.currency) {
+      throw new IllegalArgumentException(
+          String.format(CURRENCY_MISMATCH_ERROR, currency, other.currency));
+    }
+  }
+}
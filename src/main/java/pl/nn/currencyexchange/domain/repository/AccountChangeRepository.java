@@ -0,0 +1,41 @@
+package pl.nn.currencyexchange.domain.repository;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+public interface AccountChangeRepository {
+
+  /**
+   * Appends a change of each account within a single transaction.
+   *
+   * @param origin id of the instance which changed the accounts
+   */
+  void append(UUID origin, Collection<UUID> accountIds);
+
+  /**
+   * @return id of the latest change, {@code 0} when there is none
+   */
+  long findLastId();
+
+  /**
+   * Reads the changes following the given one, oldest first.
+   *
+   * @param settleAfter age after which a change is reported as settled
+   */
+  List<AccountChange> findAfter(long id, Duration settleAfter);
+
+  /**
+   * @return number of deleted changes
+   */
+  int deleteOlderThan(Instant changedAt);
+
+  /**
+   * @param settled whether the change was appended longer than the settle time ago, by the clock
+   *                of the database
+   */
+  record AccountChange(long id, UUID accountId, UUID origin, boolean settled) {
+  }
+}
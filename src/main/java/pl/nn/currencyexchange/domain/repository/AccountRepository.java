@@ -1,12 +1,80 @@
 package pl.nn.currencyexchange.domain.repository;
 
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
+import pl.nn.currencyexchange.application.rest.dto.AccountBalanceQuery;
 import pl.nn.currencyexchange.domain.entity.Account;
+import pl.nn.currencyexchange.domain.entity.ExchangeTransaction;
+import pl.nn.currencyexchange.domain.enums.ExchangeStatus;
+import pl.nn.currencyexchange.domain.model.ExchangeOrder;
 
 public interface AccountRepository {
 
   Optional<Account> findById(UUID accountId);
 
+  boolean existsById(UUID accountId);
+
+  /**
+   * Reads the owner and wallet of the account without loading it into the persistence context.
+   */
+  Optional<AccountBalanceQuery> findAccountBalance(UUID accountId);
+
   Account save(Account account);
+
+  /**
+   * Saves the account modified by the given exchange and records the exchange in the ledger,
+   * within a single transaction.
+   */
+  Account saveExchange(Account account, ExchangeOrder order);
+
+  /**
+   * Saves the accounts in a single transaction without keeping them in the persistence context,
+   * so the stream may be arbitrarily long.
+   *
+   * @return ids of the saved accounts, in the order of the stream
+   */
+  List<UUID> saveAll(Stream<Account> accounts);
+
+  /**
+   * Atomically debits the source balance and credits the target balance of the account, and
+   * records the exchange in the ledger.
+   *
+   * @return {@code false} when the account has no source balance covering the debited amount,
+   *     in which case nothing is changed
+   */
+  boolean exchange(ExchangeOrder order);
+
+  /**
+   * Applies the orders in the given order within a single transaction, each one only when the
+   * account holds enough of the source currency at that point. Rejected orders change nothing,
+   * executed ones are recorded in the ledger.
+   *
+   * @return the outcome of each order, in the order of the given list
+   */
+  List<ExchangeStatus> exchangeAll(List<ExchangeOrder> orders);
+
+  /**
+   * Applies the orders like {@link #exchangeAll(List)}, but only appends the executed ones to
+   * the ledger, leaving currency balances to {@link #projectBalances(int)}.
+   *
+   * @return the outcome of each order, in the order of the given list
+   */
+  List<ExchangeStatus> appendExchanges(List<ExchangeOrder> orders);
+
+  /**
+   * Brings the currency balances of at most the given number of accounts up to date with their
+   * ledger, within a single transaction.
+   *
+   * @return ids of the projected accounts
+   */
+  List<UUID> projectBalances(int limit);
+
+  /**
+   * Reads the ledger of the account from the newest entry, starting below the given cursor.
+   *
+   * @param cursor id of the last entry already read, or {@code null} for the first page
+   */
+  List<ExchangeTransaction> findTransactions(UUID accountId, Long cursor, int limit);
 }
@@ -0,0 +1,30 @@
+package pl.nn.currencyexchange.domain.repository;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import pl.nn.currencyexchange.domain.enums.Currency;
+import pl.nn.currencyexchange.domain.model.ExchangeRate;
+
+public interface ExchangeRateRepository {
+
+  /**
+   * Stores the rates of a fetched table, replacing rates already stored for the same currency and
+   * effective date.
+   */
+  void saveAll(List<ExchangeRate> rates, Instant fetchedAt);
+
+  /**
+   * Reads the rates of the latest stored effective date.
+   */
+  Optional<StoredRates> findLatest();
+
+  /**
+   * Reads the rate in effect on the given date, that is the latest one not effective after it.
+   */
+  Optional<ExchangeRate> findEffectiveOn(Currency currency, LocalDate date);
+
+  record StoredRates(List<ExchangeRate> rates, Instant fetchedAt) {
+  }
+}
@@ -0,0 +1,35 @@
+package pl.nn.currencyexchange.domain.repository;
+
+import java.time.Instant;
+import java.util.Optional;
+
+public interface IdempotencyKeyRepository {
+
+  /**
+   * Reads the response stored for the key, when not older than the given instant.
+   */
+  Optional<StoredResponse> findResponse(String key, Instant notBefore);
+
+  /**
+   * Inserts the key without a response, replacing its claim older than the given instant. Waits
+   * for a transaction claiming the key concurrently and fails with a
+   * {@link org.springframework.dao.DuplicateKeyException} when it committed.
+   */
+  void claim(String key, String requestHash, Instant createdAt, Instant notBefore);
+
+  /**
+   * Stores the serialized response of the key claimed in the current transaction.
+   */
+  void saveResponse(String key, String response);
+
+  /**
+   * @return number of deleted responses
+   */
+  int deleteOlderThan(Instant createdAt);
+
+  /**
+   * @param requestHash hash of the request body, {@code null} for responses stored without it
+   */
+  record StoredResponse(String requestHash, String response) {
+  }
+}
@@ -0,0 +1,24 @@
+package pl.nn.currencyexchange.domain.service;
+
+import java.util.Collection;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Broadcasts accounts whose balances changed to the other instances of the service, so that they
+ * evict the balances they cached.
+ */
+public interface AccountChangeBus {
+
+  /**
+   * Called within the transaction changing the accounts when one is active, so that the change
+   * is published if and only if it commits, and after the change otherwise. Implementations
+   * must not deliver the change to other instances before the calling transaction commits.
+   */
+  void publish(Collection<UUID> accountIds);
+
+  /**
+   * Registers a listener of accounts changed by the other instances.
+   */
+  void subscribe(Consumer<Collection<UUID>> listener);
+}
@@ -1,15 +1,36 @@
 package pl.nn.currencyexchange.domain.service;
 
+import java.util.List;
 import java.util.UUID;
+import java.util.stream.Stream;
 import pl.nn.currencyexchange.application.rest.dto.AccountBalanceQuery;
+import pl.nn.currencyexchange.application.rest.dto.AccountTransactionsQuery;
+import pl.nn.currencyexchange.application.rest.dto.BatchExchangeMoneyCommand;
+import pl.nn.currencyexchange.application.rest.dto.BatchExchangeMoneyQuery;
 import pl.nn.currencyexchange.application.rest.dto.CreateAccountCommand;
 import pl.nn.currencyexchange.application.rest.dto.ExchangeMoneyCommand;
+import pl.nn.currencyexchange.domain.model.ExchangeRateMatrix;
 
 public interface AccountService {
   
   UUID createNewAccount(CreateAccountCommand command);
 
+  List<UUID> createNewAccounts(Stream<CreateAccountCommand> commands);
+
   AccountBalanceQuery getAccountBalance(UUID accountId);
 
+  AccountTransactionsQuery getAccountTransactions(UUID accountId, Long cursor, int size);
+
   AccountBalanceQuery exchangeMoney(UUID accountId, ExchangeMoneyCommand command);
+
+  /**
+   * @return rates to execute orders with, resolved before opening a transaction, as they may be
+   *         loaded from NBP
+   */
+  ExchangeRateMatrix getExchangeRates();
+
+  AccountBalanceQuery exchangeMoney(UUID accountId, ExchangeMoneyCommand command,
+                                    ExchangeRateMatrix exchangeRates);
+
+  BatchExchangeMoneyQuery exchangeMoney(BatchExchangeMoneyCommand command);
 }
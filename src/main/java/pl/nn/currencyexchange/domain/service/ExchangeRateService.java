@@ -0,0 +1,19 @@
+package pl.nn.currencyexchange.domain.service;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Optional;
+import pl.nn.currencyexchange.application.rest.dto.ExchangeRateQuery;
+import pl.nn.currencyexchange.domain.enums.Currency;
+import pl.nn.currencyexchange.domain.model.ExchangeRateMatrix;
+
+public interface ExchangeRateService {
+
+  ExchangeRateMatrix getExchangeRates();
+
+  Optional<Duration> getExchangeRatesAge();
+
+  boolean restoreStoredRates();
+
+  ExchangeRateQuery getExchangeRate(Currency currency, LocalDate date);
+}
@@ -0,0 +1,127 @@
+package pl.nn.currencyexchange.domain.service.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import pl.nn.currencyexchange.application.rest.dto.AccountBalanceQuery;
+import pl.nn.currencyexchange.domain.service.AccountChangeBus;
+import pl.nn.currencyexchange.infrastucture.configuration.properties.ExchangeProperties;
+
+/**
+ * Bounded cache of account balances, loaded on read and invalidated by every path changing
+ * balances once its transaction has committed. Concurrent reads of an account wait for a single
+ * load. A load is only cached while its key is not invalidated, so a balance read before an
+ * exchange committed is never returned after the exchange completed. Inside a transaction
+ * balances are read from the database, as they may include its uncommitted changes, and the
+ * change is published in the transaction while the local entries are invalidated after it
+ * committed.
+ *
+ * <p>Invalidated accounts are published on the {@link AccountChangeBus}, which evicts them from
+ * the caches of the other instances. Without broadcasting, a balance may lag behind exchanges made
+ * by the other instances for up to the TTL. Outside a transaction the change has already
+ * committed when it is published, so a failed publication is only logged instead of failing the
+ * request.
+ */
+@Slf4j
+@Component
+public class AccountBalanceCache {
+
+  private static final String CACHE_NAME = "accountBalances";
+
+  private final Cache<UUID, CompletableFuture<AccountBalanceQuery>> balances;
+  private final AccountChangeBus accountChangeBus;
+
+  public AccountBalanceCache(ExchangeProperties exchangeProperties, MeterRegistry meterRegistry,
+                             AccountChangeBus accountChangeBus) {
+    var properties = exchangeProperties.getBalanceCache();
+    this.balances = Caffeine.newBuilder()
+        .maximumSize(properties.getMaxSize())
+        .expireAfterWrite(properties.getTtl())
+        .recordStats()
+        .build();
+    CaffeineCacheMetrics.monitor(meterRegistry, balances, CACHE_NAME);
+    this.accountChangeBus = accountChangeBus;
+    accountChangeBus.subscribe(balances::invalidateAll);
+  }
+
+  /**
+   * @param loader reads the balance from the database, empty when the account does not exist
+   */
+  public Optional<AccountBalanceQuery> get(UUID accountId,
+                                           Function<UUID, Optional<AccountBalanceQuery>> loader) {
+    if (TransactionSynchronizationManager.isActualTransactionActive()) {
+      return loader.apply(accountId);
+    }
+    var cached = balances.getIfPresent(accountId);
+    if (cached != null) {
+      return Optional.ofNullable(await(cached));
+    }
+    var future = new CompletableFuture<AccountBalanceQuery>();
+    var existing = balances.asMap().putIfAbsent(accountId, future);
+    if (existing != null) {
+      return Optional.ofNullable(await(existing));
+    }
+    try {
+      var balance = loader.apply(accountId);
+      if (balance.isEmpty()) {
+        balances.asMap().remove(accountId, future);
+      }
+      future.complete(balance.orElse(null));
+      return balance;
+    } catch (RuntimeException | Error e) {
+      balances.asMap().remove(accountId, future);
+      future.completeExceptionally(e);
+      throw e;
+    }
+  }
+
+  public void invalidate(UUID accountId) {
+    invalidateAll(List.of(accountId));
+  }
+
+  public void invalidateAll(Collection<UUID> accountIds) {
+    if (accountIds.isEmpty()) {
+      return;
+    }
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      accountChangeBus.publish(accountIds);
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCommit() {
+          balances.invalidateAll(accountIds);
+        }
+      });
+      return;
+    }
+    balances.invalidateAll(accountIds);
+    try {
+      accountChangeBus.publish(accountIds);
+    } catch (RuntimeException e) {
+      log.warn("Unable to publish changes of accounts {}, other instances may serve their "
+          + "cached balances until they expire", accountIds, e);
+    }
+  }
+
+  private AccountBalanceQuery await(CompletableFuture<AccountBalanceQuery> future) {
+    try {
+      return future.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      throw e;
+    }
+  }
+}
@@ -0,0 +1,63 @@
+package pl.nn.currencyexchange.domain.service.impl;
+
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import pl.nn.currencyexchange.infrastucture.configuration.properties.ExchangeProperties;
+
+/**
+ * Fixed set of locks indexed by the hash of the account id. Exchanges on different accounts
+ * rarely share a stripe and run in parallel, exchanges on the same account always do and are
+ * serialized without a database round trip. Inside a transaction the lock is held until it
+ * completes, so the next exchange on the account reads the committed balance.
+ */
+@Component
+public class AccountLocks {
+
+  private final ExchangeProperties exchangeProperties;
+  private final ReentrantLock[] stripes;
+  private final int mask;
+
+  public AccountLocks(ExchangeProperties exchangeProperties) {
+    this.exchangeProperties = exchangeProperties;
+    var size = Integer.highestOneBit(Math.max(1, exchangeProperties.getLocking().getStripes()));
+    if (size < exchangeProperties.getLocking().getStripes()) {
+      size <<= 1;
+    }
+    this.stripes = new ReentrantLock[size];
+    for (int i = 0; i < size; i++) {
+      stripes[i] = new ReentrantLock();
+    }
+    this.mask = size - 1;
+  }
+
+  public <T> T withLock(UUID accountId, Supplier<T> action) {
+    if (exchangeProperties.getLocking().getMode() != ExchangeProperties.LockingMode.STRIPED) {
+      return action.get();
+    }
+    var lock = stripeFor(accountId);
+    lock.lock();
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCompletion(int status) {
+          lock.unlock();
+        }
+      });
+      return action.get();
+    }
+    try {
+      return action.get();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private ReentrantLock stripeFor(UUID accountId) {
+    var hash = accountId.hashCode();
+    return stripes[(hash ^ (hash >>> 16)) & mask];
+  }
+}
@@ -2,28 +2,35 @@ package pl.nn.currencyexchange.domain.service.impl;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
-import java.util.Collections;
 import java.util.List;
-import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import pl.nn.currencyexchange.application.rest.dto.AccountBalanceQuery;
+import pl.nn.currencyexchange.application.rest.dto.AccountTransactionsQuery;
+import pl.nn.currencyexchange.application.rest.dto.BatchExchangeMoneyCommand;
+import pl.nn.currencyexchange.application.rest.dto.BatchExchangeMoneyQuery;
 import pl.nn.currencyexchange.application.rest.dto.CreateAccountCommand;
 import pl.nn.currencyexchange.application.rest.dto.ExchangeMoneyCommand;
 import pl.nn.currencyexchange.domain.entity.Account;
 import pl.nn.currencyexchange.domain.entity.CurrencyBalance;
 import pl.nn.currencyexchange.domain.entity.Owner;
 import pl.nn.currencyexchange.domain.enums.Currency;
+import pl.nn.currencyexchange.domain.enums.ExchangeStatus;
 import pl.nn.currencyexchange.domain.exception.AccountNotExistsException;
-import pl.nn.currencyexchange.domain.exception.CurrencyExchangeRatesNotFoundException;
 import pl.nn.currencyexchange.domain.exception.NotEnoughFundsException;
 import pl.nn.currencyexchange.domain.mapper.AccountMapper;
-import pl.nn.currencyexchange.domain.model.ExchangeRates;
+import pl.nn.currencyexchange.domain.model.ExchangeOrder;
+import pl.nn.currencyexchange.domain.model.ExchangeRateMatrix;
+import pl.nn.currencyexchange.domain.model.Money;
 import pl.nn.currencyexchange.domain.repository.AccountRepository;
 import pl.nn.currencyexchange.domain.service.AccountService;
-import pl.nn.currencyexchange.infrastucture.client.NbpClient;
+import pl.nn.currencyexchange.domain.service.ExchangeRateService;
+import pl.nn.currencyexchange.domain.service.impl.ExchangeStageTimers.Stage;
+import pl.nn.currencyexchange.infrastucture.configuration.properties.ExchangeProperties;
 
 @Slf4j
 @Service
@@ -31,39 +38,181 @@ import pl.nn.currencyexchange.infrastucture.client.NbpClient;
 public class AccountServiceImpl implements AccountService {
 
   private static final String ACCOUNT_NOT_FOUND_ERROR = "Unable to found account with id [%s]";
-  private static final String EXCHANGE_NOT_FOUND_ERROR =
-      "Unable to resolve exchange rates for currency [%s]";
   private static final String EXCHANGE_NOT_POSSIBLE_ERROR =
       "Unable to exchange for target currency, required amount: [%s], actual value: [%s]";
+  private static final String BATCH_EXCHANGE_NOT_POSSIBLE_ERROR =
+      "Unable to exchange for target currency, required amount: [%s]";
 
   private final AccountRepository accountRepository;
   private final AccountMapper accountMapper;
-  private final NbpClient nbpClient;
+  private final ExchangeRateService exchangeRateService;
+  private final ExchangeProperties exchangeProperties;
+  private final OptimisticLockRetrier optimisticLockRetrier;
+  private final AccountLocks accountLocks;
+  private final ExchangeStageTimers stageTimers;
+  private final AccountBalanceCache balanceCache;
 
   @Override
   public UUID createNewAccount(CreateAccountCommand command) {
-    Account account = new Account();
-    account.setOwner(createOwner(command));
-    account.setWallet(createInitialWallet(account, command.getBalance()));
-    var createdAccount = accountRepository.save(account);
+    var createdAccount = accountRepository.save(createAccount(command));
     return createdAccount.getId();
   }
 
+  @Override
+  public List<UUID> createNewAccounts(Stream<CreateAccountCommand> commands) {
+    return accountRepository.saveAll(commands.map(this::createAccount));
+  }
+
   @Override
   public AccountBalanceQuery getAccountBalance(UUID accountId) {
-    var account = accountRepository.findById(accountId).orElseThrow(() ->
+    return balanceCache.get(accountId, accountRepository::findAccountBalance).orElseThrow(() ->
         new AccountNotExistsException(String.format(ACCOUNT_NOT_FOUND_ERROR, accountId)));
-    return accountMapper.map(account);
+  }
+
+  /**
+   * Returns the newest ledger entries first. One more entry than requested is read to tell
+   * whether another page follows.
+   */
+  @Override
+  public AccountTransactionsQuery getAccountTransactions(UUID accountId, Long cursor, int size) {
+    var transactions = accountRepository.findTransactions(accountId, cursor, size + 1);
+    if (transactions.isEmpty() && !accountRepository.existsById(accountId)) {
+      throw new AccountNotExistsException(String.format(ACCOUNT_NOT_FOUND_ERROR, accountId));
+    }
+    var page = transactions.subList(0, Math.min(size, transactions.size()));
+    return AccountTransactionsQuery.builder()
+        .transactions(page.stream().map(accountMapper::map).toList())
+        .nextCursor(transactions.size() > size ? page.get(size - 1).getId() : null)
+        .build();
   }
 
   @Override
   public AccountBalanceQuery exchangeMoney(UUID accountId, ExchangeMoneyCommand command) {
-    var account = accountRepository.findById(accountId).orElseThrow(() ->
+    return exchangeMoney(accountId, command, getExchangeRates());
+  }
+
+  @Override
+  public ExchangeRateMatrix getExchangeRates() {
+    return stageTimers.record(Stage.RATES, exchangeRateService::getExchangeRates);
+  }
+
+  @Override
+  public AccountBalanceQuery exchangeMoney(UUID accountId, ExchangeMoneyCommand command,
+                                           ExchangeRateMatrix exchangeRates) {
+    var order = stageTimers.record(Stage.ORDER, () -> createOrder(accountId,
+        command.getSourceCurrency(), command.getCurrency(), command.getAmount(), exchangeRates));
+    return accountLocks.withLock(accountId, () -> {
+      if (exchangeProperties.getMode() == ExchangeProperties.Mode.OPTIMISTIC) {
+        return optimisticLockRetrier.execute(() -> {
+          var account = stageTimers.record(Stage.ACCOUNT_LOAD, () -> findAccount(accountId));
+          stageTimers.record(Stage.VERIFICATION, () -> verifyBalance(account,
+              Money.of(order.getSourceAmount(), order.getSourceCurrency())));
+          return exchange(account, order);
+        });
+      }
+      if (exchangeProperties.getMode() == ExchangeProperties.Mode.EVENT_SOURCED) {
+        return appendExchange(order);
+      }
+      if (!optimisticLockRetrier.execute(() ->
+          stageTimers.record(Stage.SAVE, () -> accountRepository.exchange(order)))) {
+        throw notEnoughFunds(accountId, order.getSourceCurrency(), order.getSourceAmount());
+      }
+      balanceCache.invalidate(accountId);
+      return stageTimers.record(Stage.MAPPING, () -> getAccountBalance(accountId));
+    });
+  }
+
+  /**
+   * Rates are resolved once for the whole batch, before any balance is locked.
+   */
+  @Override
+  public BatchExchangeMoneyQuery exchangeMoney(BatchExchangeMoneyCommand command) {
+    var exchangeRates = getExchangeRates();
+    var orders = stageTimers.record(Stage.ORDER, () -> command.getOrders().stream()
+        .map(order -> createOrder(order.getAccountId(), order.getSourceCurrency(),
+            order.getCurrency(), order.getAmount(), exchangeRates))
+        .toList());
+    var statuses = stageTimers.record(Stage.SAVE,
+        () -> exchangeProperties.getMode() == ExchangeProperties.Mode.EVENT_SOURCED
+            ? accountRepository.appendExchanges(orders)
+            : accountRepository.exchangeAll(orders));
+    balanceCache.invalidateAll(IntStream.range(0, orders.size())
+        .filter(i -> statuses.get(i) == ExchangeStatus.EXECUTED)
+        .mapToObj(i -> orders.get(i).getAccountId())
+        .toList());
+    return BatchExchangeMoneyQuery.builder()
+        .results(IntStream.range(0, orders.size())
+            .mapToObj(i -> toResult(orders.get(i), statuses.get(i)))
+            .toList())
+        .build();
+  }
+
+  /**
+   * The returned balance is read from the projection, so it may not reflect the order yet.
+   */
+  private AccountBalanceQuery appendExchange(ExchangeOrder order) {
+    var status = stageTimers.record(Stage.SAVE,
+        () -> accountRepository.appendExchanges(List.of(order)).get(0));
+    return switch (status) {
+      case EXECUTED -> stageTimers.record(Stage.MAPPING,
+          () -> getAccountBalance(order.getAccountId()));
+      case NOT_ENOUGH_FUNDS -> throw new NotEnoughFundsException(
+          String.format(BATCH_EXCHANGE_NOT_POSSIBLE_ERROR, order.getSourceAmount()));
+      case ACCOUNT_NOT_FOUND -> throw new AccountNotExistsException(
+          String.format(ACCOUNT_NOT_FOUND_ERROR, order.getAccountId()));
+    };
+  }
+
+  private BatchExchangeMoneyQuery.Result toResult(ExchangeOrder order, ExchangeStatus status) {
+    return BatchExchangeMoneyQuery.Result.builder()
+        .accountId(order.getAccountId())
+        .currency(order.getTargetCurrency())
+        .amount(order.getTargetAmount())
+        .status(status)
+        .message(switch (status) {
+          case EXECUTED -> null;
+          case NOT_ENOUGH_FUNDS ->
+              String.format(BATCH_EXCHANGE_NOT_POSSIBLE_ERROR, order.getSourceAmount());
+          case ACCOUNT_NOT_FOUND -> String.format(ACCOUNT_NOT_FOUND_ERROR, order.getAccountId());
+        })
+        .build();
+  }
+
+  /**
+   * Both amounts are rounded to {@link Money#BALANCE_SCALE}, the only place exchanged amounts are
+   * rounded to the stored scale.
+   */
+  private ExchangeOrder createOrder(UUID accountId, Currency sourceCurrency,
+                                    Currency targetCurrency, BigDecimal amount,
+                                    ExchangeRateMatrix exchangeRates) {
+    var source = getSourceCurrency(sourceCurrency, targetCurrency);
+    return ExchangeOrder.builder()
+        .accountId(accountId)
+        .sourceCurrency(source)
+        .sourceAmount(toBalanceScale(
+            exchangeRates.convert(source, Money.of(amount, targetCurrency)).toBigDecimal()))
+        .targetCurrency(targetCurrency)
+        .targetAmount(toBalanceScale(amount))
+        .price(exchangeRates.getRate(source, targetCurrency))
+        .rate(exchangeRates.getNbpRate(source, targetCurrency))
+        .rateEffectiveDate(exchangeRates.getEffectiveDate())
+        .build();
+  }
+
+  private static BigDecimal toBalanceScale(BigDecimal amount) {
+    return amount.setScale(Money.BALANCE_SCALE, RoundingMode.HALF_UP);
+  }
+
+  private Account findAccount(UUID accountId) {
+    return accountRepository.findById(accountId).orElseThrow(() ->
         new AccountNotExistsException(String.format(ACCOUNT_NOT_FOUND_ERROR, accountId)));
-    var exchangeRates = getExchangeRatesForCurrency(Currency.USD);
-    var exchangedValue = getExchangedValue(command, exchangeRates);
-    verifyActualWallet(account, exchangedValue, command.getCurrency());
-    return exchange(account, command, exchangedValue);
+  }
+
+  private Account createAccount(CreateAccountCommand command) {
+    Account account = new Account();
+    account.setOwner(createOwner(command));
+    account.setWallet(createInitialWallet(account, command.getBalance()));
+    return account;
   }
 
   private Owner createOwner(CreateAccountCommand command) {
@@ -83,74 +232,76 @@ public class AccountServiceImpl implements AccountService {
     );
   }
 
-  private ExchangeRates.Rates getExchangeRatesForCurrency(Currency currency) {
-    return Optional.ofNullable(nbpClient.getExchangeRates(currency.name()))
-        .map(ExchangeRates::getRatesList)
-        .orElse(Collections.emptyList()).stream()
-        .findFirst()
-        .orElseThrow(() -> new CurrencyExchangeRatesNotFoundException(
-            String.format(EXCHANGE_NOT_FOUND_ERROR, currency)));
+  /**
+   * Return value to subtract from the source currency based on exchange rate. Package-private for
+   * the benchmarks in {@code src/jmh}.
+   */
+  Money getExchangedValue(ExchangeMoneyCommand command, ExchangeRateMatrix exchangeRates) {
+    return exchangeRates.convert(
+        getSourceCurrency(command.getSourceCurrency(), command.getCurrency()),
+        Money.of(command.getAmount(), command.getCurrency()));
   }
 
   /**
-   * Return value to subtract from current currency based on exchange rate.
+   * Orders without a source currency keep the original PLN/USD behaviour: PLN is paid for
+   * foreign currencies and USD is sold for PLN.
    */
-  private BigDecimal getExchangedValue(ExchangeMoneyCommand command,
-                                       ExchangeRates.Rates exchangeRates) {
-    if (command.getCurrency().equals(Currency.PLN)) {
-      return command.getAmount().divide(exchangeRates.getBid(), 4, RoundingMode.HALF_UP);
-    } else {
-      return command.getAmount().multiply(exchangeRates.getAsk());
+  private Currency getSourceCurrency(Currency sourceCurrency, Currency targetCurrency) {
+    if (sourceCurrency != null) {
+      return sourceCurrency;
     }
+    return targetCurrency.equals(Currency.PLN) ? Currency.USD : Currency.PLN;
   }
 
-  private void verifyActualWallet(Account account, BigDecimal exchangedValue,
-                                  Currency targetCurrency) {
-    if (targetCurrency.equals(Currency.PLN)) {
-      verifyBalance(account, exchangedValue, Currency.USD);
-    } else {
-      verifyBalance(account, exchangedValue, Currency.PLN);
-    }
+  /**
+   * Called after the conditional debit was rejected, loads the account only to tell a missing
+   * account apart from insufficient funds.
+   */
+  private NotEnoughFundsException notEnoughFunds(UUID accountId, Currency currency,
+                                                 BigDecimal exchangedValue) {
+    var currentAmount = getCurrentAmount(findAccount(accountId), currency);
+    return new NotEnoughFundsException(
+        String.format(EXCHANGE_NOT_POSSIBLE_ERROR, exchangedValue, currentAmount));
   }
 
-  private void verifyBalance(Account account, BigDecimal exchangedValue,
-                             Currency currency) {
-    var currentAmount = account.getWallet().stream()
-        .filter(balance -> balance.getCurrency().equals(currency))
-        .findFirst()
-        .map(CurrencyBalance::getAmount)
-        .orElse(BigDecimal.ZERO);
-    if (currentAmount.compareTo(exchangedValue) < 0) {
-      throw new NotEnoughFundsException(
-          String.format(EXCHANGE_NOT_POSSIBLE_ERROR, exchangedValue, currentAmount));
+  void verifyBalance(Account account, Money exchangedValue) {
+    var currentAmount = getCurrentAmount(account, exchangedValue.currency());
+    if (Money.of(currentAmount, exchangedValue.currency()).isLessThan(exchangedValue)) {
+      throw new NotEnoughFundsException(String.format(EXCHANGE_NOT_POSSIBLE_ERROR,
+          exchangedValue.toBigDecimal(), currentAmount));
     }
   }
 
-  private AccountBalanceQuery exchange(Account account, ExchangeMoneyCommand command,
-                                       BigDecimal exchangedValue) {
-    CurrencyBalance sourceBalance;
-    CurrencyBalance targetBalance;
-    if (command.getCurrency().equals(Currency.PLN)) {
-      sourceBalance = getBalance(account, Currency.USD);
-      targetBalance = getBalance(account, Currency.PLN);
-    } else {
-      sourceBalance = getBalance(account, Currency.PLN);
-      targetBalance = getBalance(account, Currency.USD);
-    }
-    sourceBalance.setAmount(sourceBalance.getAmount().subtract(exchangedValue));
-    targetBalance.setAmount(targetBalance.getAmount().add(command.getAmount()));
+  private BigDecimal getCurrentAmount(Account account, Currency currency) {
+    var balance = account.getBalance(currency);
+    return balance != null ? balance.getAmount() : BigDecimal.ZERO;
+  }
+
+  /**
+   * Saving the modified wallet fails with an optimistic lock exception when any of its balances
+   * was changed since the account was loaded.
+   */
+  private AccountBalanceQuery exchange(Account account, ExchangeOrder order) {
+    var sourceBalance = getBalance(account, order.getSourceCurrency());
+    var targetBalance = getBalance(account, order.getTargetCurrency());
+    sourceBalance.setAmount(Money.of(sourceBalance.getAmount(), order.getSourceCurrency())
+        .minus(Money.of(order.getSourceAmount(), order.getSourceCurrency()))
+        .toBigDecimal());
+    targetBalance.setAmount(Money.of(targetBalance.getAmount(), order.getTargetCurrency())
+        .plus(Money.of(order.getTargetAmount(), order.getTargetCurrency()))
+        .toBigDecimal());
     if (targetBalance.getId() == null) {
-      account.getWallet().add(targetBalance);
+      account.addBalance(targetBalance);
     }
-    var saved = accountRepository.save(account);
-    return accountMapper.map(saved);
+    var saved = stageTimers.record(Stage.SAVE,
+        () -> accountRepository.saveExchange(account, order));
+    balanceCache.invalidate(account.getId());
+    return stageTimers.record(Stage.MAPPING, () -> accountMapper.map(saved));
   }
 
   private CurrencyBalance getBalance(Account account, Currency currency) {
-    return account.getWallet().stream()
-        .filter(balance -> balance.getCurrency().equals(currency))
-        .findFirst()
-        .orElse(createEmptyCurrencyBalance(account, currency));
+    var balance = account.getBalance(currency);
+    return balance != null ? balance : createEmptyCurrencyBalance(account, currency);
   }
 
   private CurrencyBalance createEmptyCurrencyBalance(Account account, Currency currency) {
@@ -0,0 +1,45 @@
+package pl.nn.currencyexchange.domain.service.impl;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import pl.nn.currencyexchange.domain.repository.AccountRepository;
+import pl.nn.currencyexchange.infrastucture.configuration.properties.ExchangeProperties;
+
+/**
+ * Keeps currency balances of event-sourced accounts up to date with their ledger. Runs in every
+ * mode, so that the ledger appended before leaving the event-sourced mode is still projected.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BalanceProjector {
+
+  private final AccountRepository accountRepository;
+  private final ExchangeProperties exchangeProperties;
+  private final AccountBalanceCache balanceCache;
+
+  /**
+   * Projects accounts in batches until none is left behind its ledger. Cached balances of each
+   * batch are invalidated once it has committed.
+   *
+   * @return number of projected accounts
+   */
+  @Scheduled(fixedDelayString = "${exchange.event-sourcing.projection-interval}")
+  public int project() {
+    var batchSize = exchangeProperties.getEventSourcing().getProjectionBatchSize();
+    var projected = 0;
+    int batch;
+    do {
+      var accountIds = accountRepository.projectBalances(batchSize);
+      balanceCache.invalidateAll(accountIds);
+      batch = accountIds.size();
+      projected += batch;
+    } while (batch == batchSize);
+    if (projected > 0) {
+      log.debug("Projected balances of [{}] accounts", projected);
+    }
+    return projected;
+  }
+}
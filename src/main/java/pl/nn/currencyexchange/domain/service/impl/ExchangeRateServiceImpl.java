@@ -0,0 +1,273 @@
+package pl.nn.currencyexchange.domain.service.impl;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import pl.nn.currencyexchange.application.rest.dto.ExchangeRateQuery;
+import pl.nn.currencyexchange.domain.enums.Currency;
+import pl.nn.currencyexchange.domain.exception.CurrencyExchangeRatesNotFoundException;
+import pl.nn.currencyexchange.domain.exception.ExchangeRatesUnavailableException;
+import pl.nn.currencyexchange.domain.mapper.ExchangeRateMapper;
+import pl.nn.currencyexchange.domain.model.ExchangeRate;
+import pl.nn.currencyexchange.domain.model.ExchangeRateMatrix;
+import pl.nn.currencyexchange.domain.repository.ExchangeRateRepository;
+import pl.nn.currencyexchange.domain.service.ExchangeRateService;
+import pl.nn.currencyexchange.infrastucture.client.ResilientNbpClient;
+import pl.nn.currencyexchange.infrastucture.configuration.properties.ExchangeRatesProperties;
+
+/**
+ * In-process cache of the NBP exchange rate table. Reads are served from an atomic reference
+ * without locking, the table is refreshed in the background and reloaded on read only when
+ * missing or expired. Concurrent loads share a single in-flight NBP request. Expired rates are
+ * still served, while being revalidated in the background, until they exceed the staleness bound.
+ * Every fetched table is stored, so that it can be restored after a restart and looked up later.
+ */
+@Slf4j
+@Service
+public class ExchangeRateServiceImpl implements ExchangeRateService {
+
+  private static final String RATE_NOT_FOUND_ERROR =
+      "Unable to resolve exchange rate of currency [%s] effective on [%s]";
+
+  private final ResilientNbpClient nbpClient;
+  private final ExchangeRateRepository exchangeRateRepository;
+  private final ExchangeRateMapper exchangeRateMapper;
+  private final ExchangeRatesProperties properties;
+  private final Clock clock;
+  private final Executor revalidationExecutor;
+
+  private final AtomicReference<CachedRates> cache = new AtomicReference<>();
+  private final AtomicReference<CompletableFuture<CachedRates>> inFlight =
+      new AtomicReference<>();
+
+  /**
+   * Set while a background revalidation is queued or running, so that a burst of stale reads
+   * submits a single one.
+   */
+  private final AtomicBoolean revalidating = new AtomicBoolean();
+
+  private final Counter issuedRequests;
+  private final Counter coalescedRequests;
+  private final Counter staleResponses;
+  private final Counter cacheHits;
+  private final Counter cacheMisses;
+
+  public ExchangeRateServiceImpl(ResilientNbpClient nbpClient,
+                                 ExchangeRateRepository exchangeRateRepository,
+                                 ExchangeRateMapper exchangeRateMapper,
+                                 ExchangeRatesProperties properties,
+                                 Clock clock, MeterRegistry meterRegistry,
+                                 @Qualifier(TaskExecutionAutoConfiguration
+                                     .APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+                                 Executor revalidationExecutor) {
+    this.nbpClient = nbpClient;
+    this.exchangeRateRepository = exchangeRateRepository;
+    this.exchangeRateMapper = exchangeRateMapper;
+    this.properties = properties;
+    this.clock = clock;
+    this.revalidationExecutor = revalidationExecutor;
+    this.issuedRequests = requestsCounter(meterRegistry, "issued");
+    this.coalescedRequests = requestsCounter(meterRegistry, "coalesced");
+    this.staleResponses = Counter.builder("exchange.rates.stale")
+        .description("Exchange rates served after expiry while NBP was being revalidated")
+        .register(meterRegistry);
+    this.cacheHits = lookupsCounter(meterRegistry, "hit");
+    this.cacheMisses = lookupsCounter(meterRegistry, "miss");
+  }
+
+  @Override
+  public ExchangeRateMatrix getExchangeRates() {
+    var cached = cache.get();
+    if (cached == null && restoreStoredRates()) {
+      cached = cache.get();
+    }
+    if (cached != null && !isExpired(cached)) {
+      cacheHits.increment();
+      return cached.rates();
+    }
+    if (cached != null && isWithinStalenessBound(cached)) {
+      staleResponses.increment();
+      revalidate();
+      return cached.rates();
+    }
+    cacheMisses.increment();
+    return load(false).rates();
+  }
+
+  @Override
+  public Optional<Duration> getExchangeRatesAge() {
+    return Optional.ofNullable(cache.get())
+        .map(cached -> Duration.between(cached.fetchedAt(), clock.instant()));
+  }
+
+  /**
+   * Restores the latest stored table into an empty cache with the time it was fetched at, so that
+   * it is served, or served stale, only as long as it would have been without the restart. Called
+   * by the warm-up and by reads finding the cache empty, so that a restart during an NBP outage
+   * falls back to the stored table whether or not warm-up is enabled.
+   *
+   * @return whether rates are cached afterwards
+   */
+  @Override
+  public boolean restoreStoredRates() {
+    if (cache.get() == null) {
+      exchangeRateRepository.findLatest().ifPresent(stored -> cache.compareAndSet(null,
+          new CachedRates(ExchangeRateMatrix.of(stored.rates()), stored.fetchedAt())));
+    }
+    return cache.get() != null;
+  }
+
+  /**
+   * @param date day the rate was in effect on, today when {@code null}
+   */
+  @Override
+  public ExchangeRateQuery getExchangeRate(Currency currency, LocalDate date) {
+    var effectiveOn = date == null ? LocalDate.now(clock) : date;
+    return exchangeRateRepository.findEffectiveOn(currency, effectiveOn)
+        .map(exchangeRateMapper::map)
+        .orElseThrow(() -> new CurrencyExchangeRatesNotFoundException(
+            String.format(RATE_NOT_FOUND_ERROR, currency, effectiveOn)));
+  }
+
+  @Scheduled(fixedDelayString = "${exchange-rates.cache.refresh-interval}")
+  public void refresh() {
+    try {
+      load(true);
+    } catch (ExchangeRatesUnavailableException e) {
+      log.warn("Skipping refresh of exchange rates: {}", e.getMessage());
+    } catch (RuntimeException e) {
+      log.warn("Unable to refresh exchange rates, keeping cached value", e);
+    }
+  }
+
+  /**
+   * Retries NBP in the background while the circuit breaker is not closed, so that recovery is
+   * detected without sending request threads to a failing service. With warm-up enabled it also
+   * retries until the first table is cached, as readiness is held until then.
+   */
+  @Scheduled(fixedDelayString = "${exchange-rates.circuit-breaker.probe-interval}")
+  public void probe() {
+    if (!nbpClient.isAvailable()
+        || (properties.getWarmUp().isEnabled() && cache.get() == null)) {
+      refresh();
+    }
+  }
+
+  private void revalidate() {
+    if (inFlight.get() != null || !revalidating.compareAndSet(false, true)) {
+      return;
+    }
+    try {
+      revalidationExecutor.execute(() -> {
+        try {
+          load(true);
+        } catch (RuntimeException e) {
+          log.warn("Unable to revalidate exchange rates: {}", e.getMessage());
+        } finally {
+          revalidating.set(false);
+        }
+      });
+    } catch (RuntimeException e) {
+      revalidating.set(false);
+      throw e;
+    }
+  }
+
+  private CachedRates load(boolean forceRefresh) {
+    var future = new CompletableFuture<CachedRates>();
+    var existing = inFlight.compareAndExchange(null, future);
+    if (existing != null) {
+      coalescedRequests.increment();
+      return await(existing);
+    }
+    try {
+      var cached = cache.get();
+      if (forceRefresh || cached == null || isExpired(cached)) {
+        cached = fetch();
+      }
+      future.complete(cached);
+      return cached;
+    } catch (RuntimeException | Error e) {
+      future.completeExceptionally(e);
+      throw e;
+    } finally {
+      inFlight.compareAndSet(future, null);
+    }
+  }
+
+  private CachedRates fetch() {
+    issuedRequests.increment();
+    var rates = nbpClient.getCurrentRates();
+    var cached = new CachedRates(ExchangeRateMatrix.of(rates), clock.instant());
+    cache.set(cached);
+    store(rates, cached.fetchedAt());
+    return cached;
+  }
+
+  /**
+   * Failing to store the table does not fail the request that fetched it, the table is only
+   * missing from restarts and historical lookups until the next refresh.
+   */
+  private void store(List<ExchangeRate> rates, Instant fetchedAt) {
+    try {
+      exchangeRateRepository.saveAll(rates, fetchedAt);
+    } catch (RuntimeException e) {
+      log.warn("Unable to store fetched exchange rates", e);
+    }
+  }
+
+  private CachedRates await(CompletableFuture<CachedRates> future) {
+    try {
+      return future.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      throw e;
+    }
+  }
+
+  private boolean isExpired(CachedRates cached) {
+    return cached.fetchedAt().plus(properties.getCache().getMaxAge()).isBefore(clock.instant());
+  }
+
+  private boolean isWithinStalenessBound(CachedRates cached) {
+    var cacheProperties = properties.getCache();
+    return !cached.fetchedAt()
+        .plus(cacheProperties.getMaxAge())
+        .plus(cacheProperties.getMaxStale())
+        .isBefore(clock.instant());
+  }
+
+  private static Counter requestsCounter(MeterRegistry meterRegistry, String outcome) {
+    return Counter.builder("exchange.rates.requests")
+        .description("Exchange rate loads issued to NBP or coalesced into an in-flight one")
+        .tag("outcome", outcome)
+        .register(meterRegistry);
+  }
+
+  private static Counter lookupsCounter(MeterRegistry meterRegistry, String result) {
+    return Counter.builder("exchange.rates.lookups")
+        .description("Exchange rate lookups served from the cache or loaded on read")
+        .tag("result", result)
+        .register(meterRegistry);
+  }
+
+  private record CachedRates(ExchangeRateMatrix rates, Instant fetchedAt) {
+  }
+}
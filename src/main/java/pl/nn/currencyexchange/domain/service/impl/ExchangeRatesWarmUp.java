@@ -0,0 +1,48 @@
+package pl.nn.currencyexchange.domain.service.impl;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import pl.nn.currencyexchange.domain.service.ExchangeRateService;
+import pl.nn.currencyexchange.infrastucture.configuration.properties.ExchangeRatesProperties;
+
+/**
+ * Loads the rate table before the application reports ready, so that the first exchange after a
+ * restart is served from the cache. The last stored table is restored first, so that the service
+ * can quote while NBP is unreachable. Startup is not failed when no rates can be loaded, readiness
+ * stays down instead until the circuit breaker probe loads the table.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "exchange-rates.warm-up", name = "enabled", matchIfMissing = true)
+public class ExchangeRatesWarmUp implements ApplicationRunner {
+
+  private final ExchangeRateService exchangeRateService;
+  private final ExchangeRatesProperties properties;
+
+  @Override
+  public void run(ApplicationArguments args) throws InterruptedException {
+    if (exchangeRateService.restoreStoredRates()) {
+      log.info("Restored stored exchange rates, aged [{}]",
+          exchangeRateService.getExchangeRatesAge().orElseThrow());
+    }
+    var warmUp = properties.getWarmUp();
+    for (int attempt = 1; attempt <= warmUp.getMaxAttempts(); attempt++) {
+      try {
+        var rates = exchangeRateService.getExchangeRates();
+        log.info("Warmed up exchange rates effective on [{}]", rates.getEffectiveDate());
+        return;
+      } catch (RuntimeException e) {
+        log.warn("Unable to warm up exchange rates, attempt [{}] of [{}]: {}", attempt,
+            warmUp.getMaxAttempts(), e.getMessage());
+      }
+      if (attempt < warmUp.getMaxAttempts()) {
+        Thread.sleep(warmUp.getBackoff());
+      }
+    }
+  }
+}
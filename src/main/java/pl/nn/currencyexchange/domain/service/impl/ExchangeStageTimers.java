@@ -0,0 +1,78 @@
+package pl.nn.currencyexchange.domain.service.impl;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.function.Supplier;
+import org.springframework.stereotype.Component;
+
+/**
+ * Times the stages of an exchange under a single {@code exchange.stage} timer tagged with the
+ * stage, so that the latency of a request can be broken down without a profiler.
+ */
+@Component
+public class ExchangeStageTimers {
+
+  private final Map<Stage, Timer> timers = new EnumMap<>(Stage.class);
+
+  public ExchangeStageTimers(MeterRegistry meterRegistry) {
+    for (var stage : Stage.values()) {
+      timers.put(stage, Timer.builder("exchange.stage")
+          .description("Time spent in a single stage of an exchange")
+          .tag("stage", stage.tag)
+          .register(meterRegistry));
+    }
+  }
+
+  /**
+   * Failed stages are recorded as well, the time spent before failing is part of the request.
+   */
+  public <T> T record(Stage stage, Supplier<T> action) {
+    return timers.get(stage).record(action);
+  }
+
+  public void record(Stage stage, Runnable action) {
+    timers.get(stage).record(action);
+  }
+
+  public enum Stage {
+
+    /**
+     * Resolving the rate table, from the cache or from NBP.
+     */
+    RATES("rates"),
+
+    /**
+     * Computing the exchanged amounts and rate of the order.
+     */
+    ORDER("order"),
+
+    /**
+     * Loading the account entity, before verifying and modifying its wallet.
+     */
+    ACCOUNT_LOAD("account-load"),
+
+    /**
+     * Verifying the source balance in memory, done by the debit itself in the atomic mode.
+     */
+    VERIFICATION("verification"),
+
+    /**
+     * Writing the exchange: the conditional debit and credit, the saved wallet or the appended
+     * ledger entry, depending on the mode.
+     */
+    SAVE("save"),
+
+    /**
+     * Reading and mapping the balance returned to the client.
+     */
+    MAPPING("mapping");
+
+    private final String tag;
+
+    Stage(String tag) {
+      this.tag = tag;
+    }
+  }
+}
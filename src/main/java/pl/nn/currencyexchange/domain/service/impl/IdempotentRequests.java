@@ -0,0 +1,200 @@
+package pl.nn.currencyexchange.domain.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import pl.nn.currencyexchange.domain.exception.ExchangeConflictException;
+import pl.nn.currencyexchange.domain.exception.IdempotencyKeyReusedException;
+import pl.nn.currencyexchange.domain.repository.IdempotencyKeyRepository;
+import pl.nn.currencyexchange.infrastucture.configuration.properties.ExchangeProperties;
+
+/**
+ * Executes a request once per idempotency key and returns its response to every request
+ * repeating the key within the TTL. The key is claimed by inserting it in the transaction which
+ * executes the request and stores its response, so an instance claiming the same key
+ * concurrently waits for that transaction and returns the stored response, or executes the
+ * request itself when it rolled back. Input of the request which is slow to resolve, such as
+ * exchange rates, is prepared before the transaction is opened. Responses are also kept in a bounded in-memory cache and
+ * concurrent requests with the same key on one instance wait for the first one. A key repeated
+ * with a different request body is rejected. Failed requests are not stored, so they may be
+ * retried with the same key.
+ */
+@Slf4j
+@Component
+public class IdempotentRequests {
+
+  private static final String SERIALIZATION_ERROR = "Unable to serialize response of key [%s]";
+  private static final String KEY_REUSED_ERROR =
+      "Idempotency key [%s] was already used with a different request";
+  private static final String IN_PROGRESS_ERROR =
+      "Request with idempotency key [%s] is still in progress";
+
+  private final IdempotencyKeyRepository idempotencyKeyRepository;
+  private final ObjectMapper objectMapper;
+  private final Clock clock;
+  private final TransactionTemplate transactionTemplate;
+  private final OptimisticLockRetrier optimisticLockRetrier;
+  private final ExchangeProperties.Idempotency properties;
+  private final Cache<String, CompletableFuture<Response>> responses;
+
+  public IdempotentRequests(IdempotencyKeyRepository idempotencyKeyRepository,
+                            ObjectMapper objectMapper, Clock clock,
+                            TransactionTemplate transactionTemplate,
+                            OptimisticLockRetrier optimisticLockRetrier,
+                            ExchangeProperties exchangeProperties) {
+    this.idempotencyKeyRepository = idempotencyKeyRepository;
+    this.objectMapper = objectMapper;
+    this.clock = clock;
+    this.transactionTemplate = transactionTemplate;
+    this.optimisticLockRetrier = optimisticLockRetrier;
+    this.properties = exchangeProperties.getIdempotency();
+    this.responses = Caffeine.newBuilder()
+        .maximumSize(properties.getMaxSize())
+        .expireAfterWrite(properties.getTtl())
+        .build();
+  }
+
+  /**
+   * @param key         scoped idempotency key of the request, or {@code null} to always execute
+   *                    it
+   * @param requestBody compared with the body of the request which stored the response
+   */
+  public <T> T execute(String key, Object requestBody, Class<T> responseType,
+                       Supplier<T> request) {
+    return execute(key, requestBody, responseType, () -> null, input -> request.get());
+  }
+
+  /**
+   * @param prepare resolves the input of the request outside of its transaction, only when the
+   *                request is executed rather than answered with a stored response
+   */
+  public <P, T> T execute(String key, Object requestBody, Class<T> responseType,
+                          Supplier<P> prepare, Function<P, T> request) {
+    if (key == null) {
+      return request.apply(prepare.get());
+    }
+    var requestHash = hash(key, requestBody);
+    var cached = responses.getIfPresent(key);
+    if (cached != null) {
+      return responseType.cast(await(cached).bodyFor(key, requestHash));
+    }
+    var future = new CompletableFuture<Response>();
+    var existing = responses.asMap().putIfAbsent(key, future);
+    if (existing != null) {
+      return responseType.cast(await(existing).bodyFor(key, requestHash));
+    }
+    try {
+      var response = findResponse(key, responseType)
+          .orElseGet(() -> {
+            var input = prepare.get();
+            return claimAndExecute(key, requestHash, responseType, () -> request.apply(input));
+          });
+      future.complete(response);
+      return responseType.cast(response.bodyFor(key, requestHash));
+    } catch (RuntimeException | Error e) {
+      responses.asMap().remove(key, future);
+      future.completeExceptionally(e);
+      throw e;
+    }
+  }
+
+  @Scheduled(fixedDelayString = "${exchange.idempotency.purge-interval}")
+  public void purge() {
+    var deleted = idempotencyKeyRepository.deleteOlderThan(
+        clock.instant().minus(properties.getTtl()));
+    if (deleted > 0) {
+      log.debug("Purged [{}] expired idempotency keys", deleted);
+    }
+  }
+
+  /**
+   * Conflicts are retried with the whole transaction, including the claim of the key. A
+   * duplicate key means another instance committed the response in the meantime.
+   */
+  private Response claimAndExecute(String key, String requestHash, Class<?> responseType,
+                                   Supplier<?> request) {
+    try {
+      return optimisticLockRetrier.execute(() -> transactionTemplate.execute(status -> {
+        var now = clock.instant();
+        idempotencyKeyRepository.claim(key, requestHash, now, now.minus(properties.getTtl()));
+        var body = request.get();
+        idempotencyKeyRepository.saveResponse(key, write(key, body));
+        return new Response(requestHash, body);
+      }));
+    } catch (DuplicateKeyException e) {
+      return findResponse(key, responseType).orElseThrow(() ->
+          new ExchangeConflictException(String.format(IN_PROGRESS_ERROR, key), e));
+    }
+  }
+
+  private Optional<Response> findResponse(String key, Class<?> responseType) {
+    return idempotencyKeyRepository
+        .findResponse(key, clock.instant().minus(properties.getTtl()))
+        .map(stored -> new Response(stored.requestHash(),
+            read(key, stored.response(), responseType)));
+  }
+
+  private Response await(CompletableFuture<Response> future) {
+    try {
+      return future.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      throw e;
+    }
+  }
+
+  private String hash(String key, Object requestBody) {
+    try {
+      return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256")
+          .digest(objectMapper.writeValueAsBytes(requestBody)));
+    } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+      throw new IllegalStateException(String.format(SERIALIZATION_ERROR, key), e);
+    }
+  }
+
+  private <T> T read(String key, String response, Class<T> responseType) {
+    try {
+      return objectMapper.readValue(response, responseType);
+    } catch (JsonProcessingException e) {
+      throw new IllegalStateException(String.format(SERIALIZATION_ERROR, key), e);
+    }
+  }
+
+  private String write(String key, Object response) {
+    try {
+      return objectMapper.writeValueAsString(response);
+    } catch (JsonProcessingException e) {
+      throw new IllegalStateException(String.format(SERIALIZATION_ERROR, key), e);
+    }
+  }
+
+  /**
+   * @param requestHash {@code null} for responses stored before request hashes were recorded
+   */
+  private record Response(String requestHash, Object body) {
+
+    Object bodyFor(String key, String otherHash) {
+      if (requestHash != null && !requestHash.equals(otherHash)) {
+        throw new IdempotencyKeyReusedException(String.format(KEY_REUSED_ERROR, key));
+      }
+      return body;
+    }
+  }
+}
@@ -0,0 +1,25 @@
+package pl.nn.currencyexchange.domain.service.impl;
+
+import java.util.Collection;
+import java.util.UUID;
+import java.util.function.Consumer;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import pl.nn.currencyexchange.domain.service.AccountChangeBus;
+
+/**
+ * Does not broadcast changes, for a single instance writing to the database.
+ */
+@Component
+@ConditionalOnProperty(prefix = "exchange.balance-cache", name = "invalidation",
+    havingValue = "LOCAL", matchIfMissing = true)
+public class LocalAccountChangeBus implements AccountChangeBus {
+
+  @Override
+  public void publish(Collection<UUID> accountIds) {
+  }
+
+  @Override
+  public void subscribe(Consumer<Collection<UUID>> listener) {
+  }
+}
@@ -0,0 +1,85 @@
+package pl.nn.currencyexchange.domain.service.impl;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import pl.nn.currencyexchange.domain.exception.ExchangeConflictException;
+import pl.nn.currencyexchange.infrastucture.configuration.properties.ExchangeProperties;
+
+/**
+ * Re-runs an optimistic read-verify-write action after a version conflict, sleeping for a random
+ * delay bounded by an exponentially growing cap (full jitter) between attempts. Atomic exchanges
+ * are retried the same way after a balance was created concurrently or a row lock could not be
+ * acquired. Inside a transaction the action is run once, a rolled back transaction cannot be
+ * continued, so the conflict is left to the retrier wrapping the whole transaction.
+ */
+@Slf4j
+@Component
+public class OptimisticLockRetrier {
+
+  private static final String CONFLICT_ERROR =
+      "Account was modified concurrently, exchange abandoned after [%s] attempts";
+
+  private final ExchangeProperties exchangeProperties;
+  private final Counter conflicts;
+  private final Counter exhausted;
+  private final DistributionSummary attempts;
+
+  public OptimisticLockRetrier(ExchangeProperties exchangeProperties,
+                               MeterRegistry meterRegistry) {
+    this.exchangeProperties = exchangeProperties;
+    this.conflicts = Counter.builder("exchange.optimistic.conflicts")
+        .description("Exchange attempts rejected because of a concurrent balance update")
+        .register(meterRegistry);
+    this.exhausted = Counter.builder("exchange.optimistic.exhausted")
+        .description("Exchanges abandoned after reaching the maximum number of attempts")
+        .register(meterRegistry);
+    this.attempts = DistributionSummary.builder("exchange.optimistic.attempts")
+        .description("Number of attempts needed to complete an optimistic exchange")
+        .register(meterRegistry);
+  }
+
+  public <T> T execute(Supplier<T> action) {
+    if (TransactionSynchronizationManager.isActualTransactionActive()) {
+      return action.get();
+    }
+    var optimistic = exchangeProperties.getOptimistic();
+    for (int attempt = 1; ; attempt++) {
+      try {
+        var result = action.get();
+        attempts.record(attempt);
+        return result;
+      } catch (ConcurrencyFailureException e) {
+        conflicts.increment();
+        if (attempt >= optimistic.getMaxAttempts()) {
+          attempts.record(attempt);
+          exhausted.increment();
+          throw new ExchangeConflictException(String.format(CONFLICT_ERROR, attempt), e);
+        }
+        log.debug("Optimistic lock conflict on attempt [{}], retrying", attempt);
+        backoff(attempt);
+      }
+    }
+  }
+
+  private void backoff(int attempt) {
+    var optimistic = exchangeProperties.getOptimistic();
+    var cap = Math.min(optimistic.getMaxBackoff().toMillis(),
+        optimistic.getInitialBackoff().toMillis() << Math.min(attempt - 1, 30));
+    if (cap <= 0) {
+      return;
+    }
+    try {
+      Thread.sleep(ThreadLocalRandom.current().nextLong(cap + 1));
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new ExchangeConflictException("Interrupted while waiting to retry exchange", e);
+    }
+  }
+}
@@ -0,0 +1,106 @@
+package pl.nn.currencyexchange.domain.service.impl;
+
+import java.time.Clock;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import pl.nn.currencyexchange.domain.repository.AccountChangeRepository;
+import pl.nn.currencyexchange.domain.service.AccountChangeBus;
+import pl.nn.currencyexchange.infrastucture.configuration.properties.ExchangeProperties;
+
+/**
+ * Broadcasts changes through the {@code account_change} table, polled by every instance from the
+ * latest change present when it started. Changes are appended within the transaction changing
+ * the accounts, so they become visible exactly when it commits. Changes made without a transaction
+ * are appended after them, so the ones of an instance stopped in between are only covered by the
+ * TTL of the caches.
+ *
+ * <p>Ids of changes are assigned before they commit, so a change may become visible after one
+ * with a higher id. Polls only move past changes older than the settle time and read the newer
+ * ones again, delivering each change once.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "exchange.balance-cache", name = "invalidation",
+    havingValue = "DATABASE")
+public class PollingAccountChangeBus implements AccountChangeBus {
+
+  private final UUID instanceId = UUID.randomUUID();
+  private final AccountChangeRepository accountChangeRepository;
+  private final Clock clock;
+  private final ExchangeProperties.BalanceCache properties;
+  private final List<Consumer<Collection<UUID>>> listeners = new CopyOnWriteArrayList<>();
+  private final ReentrantLock pollLock = new ReentrantLock();
+
+  /**
+   * Ids of the changes after the cursor which were already delivered.
+   */
+  private final Set<Long> delivered = new HashSet<>();
+
+  private long cursor;
+
+  public PollingAccountChangeBus(AccountChangeRepository accountChangeRepository, Clock clock,
+                                 ExchangeProperties exchangeProperties) {
+    this.accountChangeRepository = accountChangeRepository;
+    this.clock = clock;
+    this.properties = exchangeProperties.getBalanceCache();
+    this.cursor = accountChangeRepository.findLastId();
+  }
+
+  @Override
+  public void publish(Collection<UUID> accountIds) {
+    if (!accountIds.isEmpty()) {
+      accountChangeRepository.append(instanceId, accountIds);
+    }
+  }
+
+  @Override
+  public void subscribe(Consumer<Collection<UUID>> listener) {
+    listeners.add(listener);
+  }
+
+  /**
+   * Delivers the accounts changed by the other instances since the previous poll.
+   */
+  @Scheduled(fixedDelayString = "${exchange.balance-cache.poll-interval}")
+  public void poll() {
+    pollLock.lock();
+    try {
+      var changed = new HashSet<UUID>();
+      var settled = true;
+      for (var change : accountChangeRepository.findAfter(cursor, properties.getSettleAfter())) {
+        if (delivered.add(change.id()) && !instanceId.equals(change.origin())) {
+          changed.add(change.accountId());
+        }
+        settled &= change.settled();
+        if (settled) {
+          cursor = change.id();
+        }
+      }
+      delivered.removeIf(id -> id <= cursor);
+      if (!changed.isEmpty()) {
+        listeners.forEach(listener -> listener.accept(changed));
+      }
+    } finally {
+      pollLock.unlock();
+    }
+  }
+
+  @Scheduled(fixedDelayString = "${exchange.balance-cache.purge-interval}")
+  public void purge() {
+    var deleted = accountChangeRepository.deleteOlderThan(
+        clock.instant().minus(properties.getRetention()));
+    if (deleted > 0) {
+      log.debug("Purged [{}] account changes", deleted);
+    }
+  }
+}
@@ -1,16 +1,19 @@
 package pl.nn.currencyexchange.infrastucture.client;
 
 import feign.Headers;
+import java.util.List;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.GetMapping;
-import org.springframework.web.bind.annotation.RequestParam;
-import pl.nn.currencyexchange.domain.model.ExchangeRates;
+import pl.nn.currencyexchange.domain.model.ExchangeRatesTable;
 import pl.nn.currencyexchange.infrastucture.configuration.feign.FeignClientConfig;
 
 @FeignClient(name = "nbp-client", url = "${feign.nbp.url}", configuration = FeignClientConfig.class)
 public interface NbpClient {
 
-  @GetMapping("/exchangerates/rates/C/{currency}")
+  /**
+   * @return the current table C, as the single element of the list
+   */
+  @GetMapping("/exchangerates/tables/C")
   @Headers("Accept: application/json")
-  ExchangeRates getExchangeRates(@RequestParam("currency") String currency);
+  List<ExchangeRatesTable> getExchangeRatesTables();
 }
@@ -0,0 +1,108 @@
+package pl.nn.currencyexchange.infrastucture.client;
+
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.springframework.stereotype.Component;
+import pl.nn.currencyexchange.domain.enums.Currency;
+import pl.nn.currencyexchange.domain.exception.CurrencyExchangeRatesNotFoundException;
+import pl.nn.currencyexchange.domain.exception.ExchangeRatesUnavailableException;
+import pl.nn.currencyexchange.domain.model.ExchangeRate;
+import pl.nn.currencyexchange.domain.model.ExchangeRatesTable;
+
+/**
+ * Calls {@link NbpClient} through the {@code nbp} circuit breaker, so that an NBP outage fails
+ * fast instead of holding request threads.
+ */
+@Component
+public class ResilientNbpClient {
+
+  public static final String CIRCUIT_BREAKER_NAME = "nbp";
+
+  private static final Set<String> KNOWN_CURRENCIES = Arrays.stream(Currency.values())
+      .map(Currency::name)
+      .collect(Collectors.toUnmodifiableSet());
+
+  private static final String EXCHANGE_NOT_FOUND_ERROR = "Unable to resolve exchange rates table";
+  private static final String EXCHANGE_UNAVAILABLE_ERROR =
+      "Exchange rates service is temporarily unavailable, unable to resolve rates table";
+
+  private final NbpClient nbpClient;
+  private final CircuitBreaker circuitBreaker;
+  private final Timer successfulRequests;
+  private final Timer failedRequests;
+
+  public ResilientNbpClient(NbpClient nbpClient, CircuitBreakerRegistry circuitBreakerRegistry,
+                            MeterRegistry meterRegistry) {
+    this.nbpClient = nbpClient;
+    this.circuitBreaker = circuitBreakerRegistry.circuitBreaker(CIRCUIT_BREAKER_NAME);
+    this.successfulRequests = requestsTimer(meterRegistry, "success");
+    this.failedRequests = requestsTimer(meterRegistry, "failure");
+  }
+
+  /**
+   * Fetches the whole table C in a single call. Currencies not known to this service are skipped.
+   */
+  public List<ExchangeRate> getCurrentRates() {
+    List<ExchangeRatesTable> tables;
+    try {
+      tables = circuitBreaker.executeSupplier(this::fetchTables);
+    } catch (CallNotPermittedException e) {
+      throw new ExchangeRatesUnavailableException(EXCHANGE_UNAVAILABLE_ERROR);
+    }
+    var table = Optional.ofNullable(tables)
+        .orElse(Collections.emptyList()).stream()
+        .filter(Objects::nonNull)
+        .findFirst()
+        .orElseThrow(() -> new CurrencyExchangeRatesNotFoundException(EXCHANGE_NOT_FOUND_ERROR));
+    var rates = Optional.ofNullable(table.getRates()).orElse(Collections.emptyList()).stream()
+        .filter(rate -> KNOWN_CURRENCIES.contains(rate.getCode()))
+        .map(rate -> ExchangeRate.builder()
+            .currency(Currency.valueOf(rate.getCode()))
+            .effectiveDate(table.getEffectiveDate())
+            .bid(rate.getBid())
+            .ask(rate.getAsk())
+            .build())
+        .toList();
+    if (rates.isEmpty()) {
+      throw new CurrencyExchangeRatesNotFoundException(EXCHANGE_NOT_FOUND_ERROR);
+    }
+    return rates;
+  }
+
+  public boolean isAvailable() {
+    return circuitBreaker.getState() == CircuitBreaker.State.CLOSED;
+  }
+
+  /**
+   * Calls rejected by the open circuit breaker never reach this method, so that they do not
+   * distort the upstream latency.
+   */
+  private List<ExchangeRatesTable> fetchTables() {
+    var sample = Timer.start();
+    try {
+      var tables = nbpClient.getExchangeRatesTables();
+      sample.stop(successfulRequests);
+      return tables;
+    } catch (RuntimeException e) {
+      sample.stop(failedRequests);
+      throw e;
+    }
+  }
+
+  private static Timer requestsTimer(MeterRegistry meterRegistry, String outcome) {
+    return Timer.builder("nbp.requests")
+        .description("Latency of NBP rate table requests")
+        .tag("outcome", outcome)
+        .register(meterRegistry);
+  }
+}
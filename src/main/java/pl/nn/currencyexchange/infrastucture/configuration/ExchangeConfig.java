@@ -0,0 +1,10 @@
+package pl.nn.currencyexchange.infrastucture.configuration;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import pl.nn.currencyexchange.infrastucture.configuration.properties.ExchangeProperties;
+
+@Configuration
+@EnableConfigurationProperties(ExchangeProperties.class)
+public class ExchangeConfig {
+}
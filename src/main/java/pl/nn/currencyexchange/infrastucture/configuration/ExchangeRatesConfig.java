@@ -0,0 +1,38 @@
+package pl.nn.currencyexchange.infrastucture.configuration;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.time.Clock;
+import java.time.Duration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import pl.nn.currencyexchange.domain.service.ExchangeRateService;
+import pl.nn.currencyexchange.infrastucture.configuration.properties.ExchangeRatesProperties;
+
+@Configuration
+@EnableScheduling
+@EnableConfigurationProperties(ExchangeRatesProperties.class)
+public class ExchangeRatesConfig {
+
+  @Bean
+  @ConditionalOnMissingBean
+  public Clock clock() {
+    return Clock.systemUTC();
+  }
+
+  @Bean
+  public MeterBinder exchangeRatesAgeMetrics(ExchangeRateService exchangeRateService) {
+    return registry -> Gauge.builder("exchange.rates.age", () ->
+            exchangeRateService.getExchangeRatesAge()
+                .map(Duration::toSeconds)
+                .map(Number.class::cast)
+                .orElse(Double.NaN))
+        .description("Time since the cached exchange rate table was fetched from NBP")
+        .baseUnit("seconds")
+        .tag("table", "C")
+        .register(registry);
+  }
+}
@@ -0,0 +1,20 @@
+package pl.nn.currencyexchange.infrastucture.configuration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.util.Assert;
+
+/**
+ * The password of the {@code server} profile has no default. The datasource binding would use an
+ * unresolved {@code EXCHANGE_DB_PASSWORD} placeholder as the password itself, so it is resolved
+ * here, failing the startup when it is not set.
+ */
+@Configuration
+@Profile("server")
+public class ServerDataSourceConfig {
+
+  public ServerDataSourceConfig(@Value("${spring.datasource.password}") String password) {
+    Assert.hasText(password, "Database password must be set with EXCHANGE_DB_PASSWORD");
+  }
+}
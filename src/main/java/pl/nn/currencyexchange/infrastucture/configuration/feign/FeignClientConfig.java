@@ -1,7 +1,5 @@
 package pl.nn.currencyexchange.infrastucture.configuration.feign;
 
-import static java.util.concurrent.TimeUnit.SECONDS;
-
 import feign.Feign;
 import feign.Logger;
 import feign.Retryer;
@@ -19,10 +17,13 @@ public class FeignClientConfig {
         .logLevel(Logger.Level.BASIC);
   }
 
+  /**
+   * Failures are not retried in the calling thread, the nbp circuit breaker and the background
+   * rate refresh take care of recovery.
+   */
   @Bean
   public Retryer retryer() {
-    return new Retryer.Default(SECONDS.toMillis(5), SECONDS.toMillis(20), 3) {
-    };
+    return Retryer.NEVER_RETRY;
   }
 
   @Bean
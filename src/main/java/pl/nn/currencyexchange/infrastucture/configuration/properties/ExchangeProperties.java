@@ -0,0 +1,167 @@
+package pl.nn.currencyexchange.infrastucture.configuration.properties;
+
+import java.time.Duration;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "exchange")
+public class ExchangeProperties {
+
+  /**
+   * How concurrent exchanges on the same account are kept from losing updates.
+   */
+  private Mode mode = Mode.ATOMIC;
+
+  private Optimistic optimistic = new Optimistic();
+
+  private Locking locking = new Locking();
+
+  private EventSourcing eventSourcing = new EventSourcing();
+
+  private Idempotency idempotency = new Idempotency();
+
+  private BalanceCache balanceCache = new BalanceCache();
+
+  public enum Mode {
+
+    /**
+     * Conditional debit and credit statements, serialized by database row locks.
+     */
+    ATOMIC,
+
+    /**
+     * Load, verify and save of the whole account, retried on version conflicts.
+     */
+    OPTIMISTIC,
+
+    /**
+     * Exchanges are only appended to the ledger, verified against balances replayed from the
+     * latest snapshot of the account. Currency balances become a projection of the ledger kept
+     * up to date in the background, so balance reads may lag behind by the projection interval.
+     * When leaving this mode, exchanges must be stopped until the projection has caught up.
+     */
+    EVENT_SOURCED
+  }
+
+  public enum LockingMode {
+
+    /**
+     * No in-memory locking, concurrent exchanges are handled by the database only.
+     */
+    OFF,
+
+    /**
+     * Exchanges on the same account are serialized in memory by a striped lock. Only safe when
+     * a single instance writes to the database.
+     */
+    STRIPED
+  }
+
+  public enum CacheInvalidation {
+
+    /**
+     * Cached balances are only evicted by changes made by the instance itself. Only safe when a
+     * single instance writes to the database.
+     */
+    LOCAL,
+
+    /**
+     * Changes are appended to a table polled by every instance, which evicts the balances
+     * changed by the other ones within the poll interval.
+     */
+    DATABASE
+  }
+
+  @Data
+  public static class Optimistic {
+
+    /**
+     * Maximum number of attempts of a single exchange, including the first one.
+     */
+    private int maxAttempts = 5;
+
+    /**
+     * Upper bound of the jittered delay before the first retry, doubled on each next one.
+     */
+    private Duration initialBackoff = Duration.ofMillis(10);
+
+    private Duration maxBackoff = Duration.ofMillis(200);
+  }
+
+  @Data
+  public static class Locking {
+
+    private LockingMode mode = LockingMode.OFF;
+
+    /**
+     * Number of locks shared by all accounts, rounded up to a power of two.
+     */
+    private int stripes = 64;
+  }
+
+  @Data
+  public static class EventSourcing {
+
+    /**
+     * Number of ledger entries of an account after which its balances are snapshotted, which
+     * bounds the number of entries replayed by a single exchange.
+     */
+    private int snapshotInterval = 100;
+
+    private Duration projectionInterval = Duration.ofSeconds(1);
+
+    /**
+     * Maximum number of accounts projected in a single transaction.
+     */
+    private int projectionBatchSize = 500;
+  }
+
+  @Data
+  public static class Idempotency {
+
+    /**
+     * How long a response is returned again for requests repeating its idempotency key.
+     */
+    private Duration ttl = Duration.ofHours(24);
+
+    /**
+     * Maximum number of responses kept in memory, evicted ones are still read from the database.
+     */
+    private long maxSize = 100_000;
+
+    private Duration purgeInterval = Duration.ofHours(1);
+  }
+
+  @Data
+  public static class BalanceCache {
+
+    /**
+     * Maximum number of account balances kept in memory.
+     */
+    private long maxSize = 10_000;
+
+    /**
+     * How long a balance is served from memory, which bounds how far it may lag behind changes
+     * made by other instances when they are not broadcast.
+     */
+    private Duration ttl = Duration.ofMinutes(5);
+
+    private CacheInvalidation invalidation = CacheInvalidation.LOCAL;
+
+    private Duration pollInterval = Duration.ofSeconds(1);
+
+    /**
+     * Upper bound of the time between appending a change and committing it, after which polls
+     * stop reading the change again.
+     */
+    private Duration settleAfter = Duration.ofSeconds(5);
+
+    /**
+     * How long changes are kept in the database, well beyond the settle time.
+     */
+    private Duration retention = Duration.ofHours(1);
+
+    private Duration purgeInterval = Duration.ofMinutes(10);
+  }
+}
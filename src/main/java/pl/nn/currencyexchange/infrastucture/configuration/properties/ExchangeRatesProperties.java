@@ -0,0 +1,61 @@
+package pl.nn.currencyexchange.infrastucture.configuration.properties;
+
+import java.time.Duration;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "exchange-rates")
+public class ExchangeRatesProperties {
+
+  private Cache cache = new Cache();
+  private CircuitBreaker circuitBreaker = new CircuitBreaker();
+  private WarmUp warmUp = new WarmUp();
+
+  @Data
+  public static class Cache {
+
+    /**
+     * Delay between background refreshes of all cached rates.
+     */
+    private Duration refreshInterval = Duration.ofMinutes(30);
+
+    /**
+     * Age after which a cached rate is no longer served and is reloaded on read.
+     */
+    private Duration maxAge = Duration.ofHours(12);
+
+    /**
+     * How long past {@code maxAge} a rate may still be served while it cannot be revalidated.
+     */
+    private Duration maxStale = Duration.ofDays(3);
+  }
+
+  @Data
+  public static class CircuitBreaker {
+
+    /**
+     * Delay between background NBP calls made while the circuit breaker is not closed.
+     */
+    private Duration probeInterval = Duration.ofSeconds(30);
+  }
+
+  @Data
+  public static class WarmUp {
+
+    /**
+     * Whether the rate table is loaded at startup and readiness is held until it is cached.
+     */
+    private boolean enabled = true;
+
+    /**
+     * NBP calls made at startup before readiness is left to the circuit breaker probe.
+     */
+    private int maxAttempts = 3;
+
+    /**
+     * Delay between failed startup attempts.
+     */
+    private Duration backoff = Duration.ofSeconds(2);
+  }
+}
@@ -0,0 +1,38 @@
+package pl.nn.currencyexchange.infrastucture.health;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+import pl.nn.currencyexchange.domain.service.ExchangeRateService;
+import pl.nn.currencyexchange.infrastucture.configuration.properties.ExchangeRatesProperties;
+
+/**
+ * Down until a rate table has been cached, included in the readiness group so that instances
+ * do not receive traffic before they can exchange without calling NBP. Once loaded it stays up
+ * and reports the age of the table, flagged as stale beyond the maximum age and staleness
+ * served from the cache, as a stale table is shared by every instance during an NBP outage and
+ * taking them out of readiness would not help. Without warm-up the table is loaded by the first
+ * exchange, so readiness is not held.
+ */
+@Component("exchangeRates")
+@RequiredArgsConstructor
+public class ExchangeRatesHealthIndicator implements HealthIndicator {
+
+  private final ExchangeRateService exchangeRateService;
+  private final ExchangeRatesProperties properties;
+
+  @Override
+  public Health health() {
+    var cacheProperties = properties.getCache();
+    var servedFor = cacheProperties.getMaxAge().plus(cacheProperties.getMaxStale());
+    return exchangeRateService.getExchangeRatesAge()
+        .map(age -> Health.up()
+            .withDetail("age", age)
+            .withDetail("stale", age.compareTo(servedFor) > 0)
+            .build())
+        .orElseGet(() -> properties.getWarmUp().isEnabled()
+            ? Health.down().withDetail("reason", "Exchange rates not loaded").build()
+            : Health.up().withDetail("reason", "Warm-up disabled").build());
+  }
+}
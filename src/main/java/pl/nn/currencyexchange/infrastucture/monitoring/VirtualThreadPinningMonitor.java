@@ -0,0 +1,73 @@
+package pl.nn.currencyexchange.infrastucture.monitoring;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.stream.Collectors;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reports virtual threads that block while pinned to their carrier thread, e.g. inside a
+ * {@code synchronized} block, using the JDK Flight Recorder {@code jdk.VirtualThreadPinned}
+ * event. Every occurrence is counted and logged with the top of its stack trace.
+ */
+@Slf4j
+@Component
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadPinningMonitor implements SmartLifecycle {
+
+  private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+  private static final int LOGGED_FRAMES = 10;
+
+  private final Counter pinnedThreads;
+  private RecordingStream recording;
+
+  public VirtualThreadPinningMonitor(MeterRegistry meterRegistry) {
+    this.pinnedThreads = Counter.builder("jvm.threads.virtual.pinned")
+        .description("Virtual threads blocked while pinned to their carrier thread")
+        .register(meterRegistry);
+  }
+
+  @Override
+  public void start() {
+    recording = new RecordingStream();
+    recording.enable(PINNED_EVENT).withStackTrace();
+    recording.onEvent(PINNED_EVENT, this::report);
+    recording.startAsync();
+  }
+
+  @Override
+  public void stop() {
+    recording.close();
+    recording = null;
+  }
+
+  @Override
+  public boolean isRunning() {
+    return recording != null;
+  }
+
+  private void report(RecordedEvent event) {
+    pinnedThreads.increment();
+    if (log.isWarnEnabled()) {
+      var stackTrace = event.getStackTrace() == null ? "" : event.getStackTrace().getFrames()
+          .stream()
+          .limit(LOGGED_FRAMES)
+          .map(VirtualThreadPinningMonitor::format)
+          .collect(Collectors.joining(""));
+      log.warn("Virtual thread pinned to its carrier for [{}] ms{}",
+          event.getDuration().toMillis(), stackTrace);
+    }
+  }
+
+  private static String format(RecordedFrame frame) {
+    return String.format("%n\tat %s.%s(line %s)", frame.getMethod().getType().getName(),
+        frame.getMethod().getName(), frame.getLineNumber());
+  }
+}
@@ -0,0 +1,19 @@
+package pl.nn.currencyexchange.infrastucture.repository;
+
+import java.math.BigDecimal;
+import pl.nn.currencyexchange.domain.enums.Currency;
+
+/**
+ * Flat row of the account balance read model, one per currency balance of the account. Currency
+ * and amount are {@code null} for an account without any balance.
+ */
+public interface AccountBalanceView {
+
+  String getFirstName();
+
+  String getLastName();
+
+  Currency getCurrency();
+
+  BigDecimal getAmount();
+}
@@ -0,0 +1,71 @@
+package pl.nn.currencyexchange.infrastucture.repository;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import pl.nn.currencyexchange.domain.repository.AccountChangeRepository;
+
+@Component
+@RequiredArgsConstructor
+public class AccountChangeRepositoryAdapter implements AccountChangeRepository {
+
+  private static final String INSERT_CHANGE_SQL = """
+      INSERT INTO account_change (account_id, origin) VALUES (:accountId, :origin)""";
+  private static final String FIND_LAST_ID_SQL = """
+      SELECT COALESCE(MAX(id), 0) FROM account_change""";
+  private static final String FIND_AFTER_SQL = """
+      SELECT id, account_id, origin,
+             changed_at < DATEADD(MILLISECOND, -:settleAfter, CURRENT_TIMESTAMP) AS settled
+      FROM account_change
+      WHERE id > :id
+      ORDER BY id""";
+  private static final String DELETE_EXPIRED_SQL = """
+      DELETE FROM account_change WHERE changed_at < :changedAt""";
+
+  private final NamedParameterJdbcTemplate jdbcTemplate;
+
+  @Override
+  @Transactional
+  public void append(UUID origin, Collection<UUID> accountIds) {
+    jdbcTemplate.batchUpdate(INSERT_CHANGE_SQL, accountIds.stream()
+        .map(accountId -> new MapSqlParameterSource()
+            .addValue("accountId", accountId)
+            .addValue("origin", origin))
+        .toArray(MapSqlParameterSource[]::new));
+  }
+
+  @Override
+  public long findLastId() {
+    return jdbcTemplate.queryForObject(FIND_LAST_ID_SQL, Map.of(), Long.class);
+  }
+
+  @Override
+  public List<AccountChange> findAfter(long id, Duration settleAfter) {
+    return jdbcTemplate.query(FIND_AFTER_SQL,
+        Map.of("id", id, "settleAfter", settleAfter.toMillis()),
+        (row, rowNum) -> new AccountChange(
+            row.getLong("id"),
+            row.getObject("account_id", UUID.class),
+            row.getObject("origin", UUID.class),
+            row.getBoolean("settled")));
+  }
+
+  @Override
+  public int deleteOlderThan(Instant changedAt) {
+    return jdbcTemplate.update(DELETE_EXPIRED_SQL, Map.of("changedAt", toTimestamp(changedAt)));
+  }
+
+  private static OffsetDateTime toTimestamp(Instant instant) {
+    return instant.atOffset(ZoneOffset.UTC);
+  }
+}
@@ -1,25 +1,366 @@
 package pl.nn.currencyexchange.infrastucture.repository;
 
+import static java.util.stream.Collectors.groupingBy;
+import static java.util.stream.Collectors.summingInt;
+import static java.util.stream.Collectors.toSet;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import pl.nn.currencyexchange.application.rest.dto.AccountBalanceQuery;
 import pl.nn.currencyexchange.domain.entity.Account;
+import pl.nn.currencyexchange.domain.entity.ExchangeTransaction;
+import pl.nn.currencyexchange.domain.enums.Currency;
+import pl.nn.currencyexchange.domain.enums.ExchangeStatus;
+import pl.nn.currencyexchange.domain.model.ExchangeOrder;
 import pl.nn.currencyexchange.domain.repository.AccountRepository;
 
 @Component
 @RequiredArgsConstructor
 public class AccountRepositoryAdapter implements AccountRepository {
 
+  private static final String CONCURRENT_BALANCE_ERROR =
+      "Currency balance of account [%s] was created concurrently";
+  /**
+   * Rows are locked in key order, so that concurrent batches and exchanges cannot deadlock each
+   * other.
+   */
+  private static final String LOCK_BALANCES_SQL = """
+      SELECT account_id, currency, amount FROM currency_balance
+      WHERE account_id IN (:accountIds)
+      ORDER BY account_id, currency
+      FOR UPDATE""";
+  private static final String LOCK_EXCHANGE_BALANCES_SQL = """
+      SELECT currency FROM currency_balance
+      WHERE account_id = :accountId AND currency IN (:currencies)
+      ORDER BY currency
+      FOR UPDATE""";
+  private static final String CREDIT_BALANCE_SQL = """
+      MERGE INTO currency_balance b
+      USING (VALUES (CAST(:id AS uuid), CAST(:accountId AS uuid), CAST(:currency AS varchar(3)),
+          CAST(:amount AS numeric(38, 2)))) c (id, account_id, currency, amount)
+      ON b.account_id = c.account_id AND b.currency = c.currency
+      WHEN MATCHED THEN UPDATE SET amount = b.amount + c.amount, version = b.version + 1
+      WHEN NOT MATCHED THEN INSERT (id, currency, amount, version, account_id)
+          VALUES (c.id, c.currency, c.amount, 0, c.account_id)""";
+  private static final String UPDATE_BALANCE_SQL = """
+      UPDATE currency_balance SET amount = ?, version = version + 1
+      WHERE account_id = ? AND currency = ?""";
+  private static final String INSERT_BALANCE_SQL = """
+      INSERT INTO currency_balance (id, currency, amount, version, account_id)
+      VALUES (?, ?, ?, 0, ?)""";
+  private static final String INSERT_TRANSACTION_SQL = """
+      INSERT INTO exchange_transaction (account_id, source_currency, source_amount,
+          target_currency, target_amount, price, rate, rate_effective_date)
+      VALUES (?, ?, ?, ?, ?, ?, ?, ?)""";
+
   private final JpaAccountRepository jpaAccountRepository;
+  private final JpaCurrencyBalanceRepository jpaCurrencyBalanceRepository;
+  private final JpaExchangeTransactionRepository jpaExchangeTransactionRepository;
+  private final EventSourcedBalanceStore eventSourcedBalanceStore;
+  private final NamedParameterJdbcTemplate jdbcTemplate;
+  private final EntityManager entityManager;
 
   @Override
   public Optional<Account> findById(UUID accountId) {
-    return jpaAccountRepository.findById(accountId);
+    return jpaAccountRepository.findWithOwnerAndWalletById(accountId);
+  }
+
+  @Override
+  public boolean existsById(UUID accountId) {
+    return jpaAccountRepository.existsById(accountId);
   }
 
+  /**
+   * Builds the balance directly from a projection, so no entities are hydrated or snapshotted
+   * for dirty checking and the read-only transaction skips the flush.
+   */
+  @Override
+  @Transactional(readOnly = true)
+  public Optional<AccountBalanceQuery> findAccountBalance(UUID accountId) {
+    var rows = jpaAccountRepository.findBalanceById(accountId);
+    if (rows.isEmpty()) {
+      return Optional.empty();
+    }
+    var first = rows.get(0);
+    return Optional.of(AccountBalanceQuery.builder()
+        .owner(AccountBalanceQuery.Owner.builder()
+            .firstName(first.getFirstName())
+            .lastName(first.getLastName())
+            .build())
+        .wallet(rows.stream()
+            .filter(row -> Objects.nonNull(row.getCurrency()))
+            .map(row -> AccountBalanceQuery.CurrencyBalance.builder()
+                .currency(row.getCurrency())
+                .amount(row.getAmount())
+                .build())
+            .toList())
+        .build());
+  }
+
+  /**
+   * A new currency balance colliding with the unique {@code (account_id, currency)} index means
+   * another transaction created it first, which is reported like any other version conflict.
+   */
   @Override
   public Account save(Account account) {
-    return jpaAccountRepository.save(account);
+    return translateConcurrentBalance(account.getId(), () -> jpaAccountRepository.save(account));
+  }
+
+  /**
+   * The account is flushed before the ledger entry is written, so that a conflicting balance
+   * fails here and is translated like in {@link #save(Account)}, rather than on commit.
+   */
+  @Override
+  @Transactional
+  public Account saveExchange(Account account, ExchangeOrder order) {
+    var saved = translateConcurrentBalance(account.getId(),
+        () -> jpaAccountRepository.saveAndFlush(account));
+    appendTransactions(List.of(order));
+    return saved;
+  }
+
+  private <T> T translateConcurrentBalance(UUID accountId, Supplier<T> save) {
+    try {
+      return save.get();
+    } catch (DuplicateKeyException e) {
+      throw concurrentBalance(accountId, e);
+    } catch (DataIntegrityViolationException e) {
+      if (e.getCause() instanceof ConstraintViolationException violation
+          && violation.getKind() == ConstraintViolationException.ConstraintKind.UNIQUE) {
+        throw concurrentBalance(accountId, e);
+      }
+      throw e;
+    }
+  }
+
+  private OptimisticLockingFailureException concurrentBalance(UUID accountId,
+                                                              DataIntegrityViolationException e) {
+    return new OptimisticLockingFailureException(
+        String.format(CONCURRENT_BALANCE_ERROR, accountId), e);
+  }
+
+  /**
+   * Flushes and clears the persistence context every JDBC batch size accounts, so that inserts
+   * are sent in full batches ordered by table and memory use does not grow with the stream.
+   */
+  @Override
+  @Transactional
+  public List<UUID> saveAll(Stream<Account> accounts) {
+    var batchSize = jdbcBatchSize();
+    var ids = new ArrayList<UUID>();
+    accounts.forEach(account -> {
+      ids.add(jpaAccountRepository.save(account).getId());
+      if (ids.size() % batchSize == 0) {
+        entityManager.flush();
+        entityManager.clear();
+      }
+    });
+    return ids;
+  }
+
+  private int jdbcBatchSize() {
+    var batchSize = entityManager.getEntityManagerFactory().getProperties()
+        .get(AvailableSettings.STATEMENT_BATCH_SIZE);
+    return batchSize == null ? 1 : Math.max(1, Integer.parseInt(batchSize.toString()));
+  }
+
+  /**
+   * Locks the source and the target balance up front in currency order, like
+   * {@link #exchangeAll(List)}, so that exchanges in opposite directions on the same account are
+   * serialized instead of deadlocking. The target balance is upserted, a first credit of a
+   * currency racing with another one is translated like in {@link #save(Account)}.
+   */
+  @Override
+  @Transactional
+  public boolean exchange(ExchangeOrder order) {
+    var accountId = order.getAccountId();
+    jdbcTemplate.queryForList(LOCK_EXCHANGE_BALANCES_SQL, Map.of("accountId", accountId,
+        "currencies", List.of(order.getSourceCurrency().name(),
+            order.getTargetCurrency().name())), String.class);
+    if (jpaCurrencyBalanceRepository.debit(accountId, order.getSourceCurrency(),
+        order.getSourceAmount()) == 0) {
+      return false;
+    }
+    translateConcurrentBalance(accountId, () -> jdbcTemplate.update(CREDIT_BALANCE_SQL,
+        new MapSqlParameterSource()
+            .addValue("id", UUID.randomUUID())
+            .addValue("accountId", accountId)
+            .addValue("currency", order.getTargetCurrency().name())
+            .addValue("amount", order.getTargetAmount())));
+    appendTransactions(List.of(order));
+    return true;
+  }
+
+  /**
+   * Locks every touched balance with a single select, applies the orders in memory and writes
+   * the resulting balances back with one JDBC batch of updates and one of inserts. Accounts are
+   * always created with a PLN balance, so an account without balances is missing.
+   */
+  @Override
+  @Transactional
+  public List<ExchangeStatus> exchangeAll(List<ExchangeOrder> orders) {
+    var accountIds = orders.stream().map(ExchangeOrder::getAccountId).distinct().toList();
+    var wallets = new HashMap<UUID, Map<Currency, BigDecimal>>();
+    jdbcTemplate.query(LOCK_BALANCES_SQL, Map.of("accountIds", accountIds), row -> {
+      wallets.computeIfAbsent(row.getObject("account_id", UUID.class),
+              id -> new EnumMap<>(Currency.class))
+          .put(Currency.valueOf(row.getString("currency")), row.getBigDecimal("amount"));
+    });
+    var stored = new HashMap<UUID, Set<Currency>>();
+    wallets.forEach((accountId, wallet) -> stored.put(accountId, Set.copyOf(wallet.keySet())));
+
+    var executed = new ArrayList<ExchangeOrder>();
+    var statuses = applyOrders(orders, wallets, executed);
+    saveWallets(executed.stream().map(ExchangeOrder::getAccountId).collect(toSet()), wallets,
+        stored);
+    appendTransactions(executed);
+    return statuses;
+  }
+
+  /**
+   * Applies the orders like {@link #exchangeAll(List)}, but against balances replayed from the
+   * ledger, which the executed orders are then only appended to. Replaying takes the lock on the
+   * snapshot rows of the accounts instead of on their currency balances, which stay untouched.
+   */
+  @Override
+  @Transactional
+  public List<ExchangeStatus> appendExchanges(List<ExchangeOrder> orders) {
+    var accountIds = orders.stream().map(ExchangeOrder::getAccountId).distinct().toList();
+    var replays = eventSourcedBalanceStore.lockAndReplay(accountIds);
+    var wallets = new HashMap<UUID, Map<Currency, BigDecimal>>();
+    replays.forEach((accountId, replay) -> wallets.put(accountId, replay.getBalances()));
+
+    var executed = new ArrayList<ExchangeOrder>();
+    var statuses = applyOrders(orders, wallets, executed);
+    appendTransactions(executed);
+    eventSourcedBalanceStore.snapshotIfDue(replays, executed.stream()
+        .collect(groupingBy(ExchangeOrder::getAccountId, summingInt(order -> 1))));
+    return statuses;
+  }
+
+  /**
+   * Overwrites the currency balances of the projected accounts with their replayed ledger, so
+   * that projecting an entry twice has no effect.
+   */
+  @Override
+  @Transactional
+  public List<UUID> projectBalances(int limit) {
+    var accountIds = eventSourcedBalanceStore.lockPendingProjections(limit);
+    if (accountIds.isEmpty()) {
+      return List.of();
+    }
+    var stored = new HashMap<UUID, Set<Currency>>();
+    jdbcTemplate.query(LOCK_BALANCES_SQL, Map.of("accountIds", accountIds), row -> {
+      stored.computeIfAbsent(row.getObject("account_id", UUID.class),
+              id -> EnumSet.noneOf(Currency.class))
+          .add(Currency.valueOf(row.getString("currency")));
+    });
+    var replays = eventSourcedBalanceStore.replay(accountIds);
+    var wallets = new HashMap<UUID, Map<Currency, BigDecimal>>();
+    replays.forEach((accountId, replay) -> wallets.put(accountId, replay.getBalances()));
+    saveWallets(wallets.keySet(), wallets, stored);
+    eventSourcedBalanceStore.markProjected(replays);
+    return accountIds;
+  }
+
+  /**
+   * Applies the orders in sequence to the given wallets, adding the executed ones to the given
+   * list. Amounts of the orders are already rounded to the column scale, so are the balances.
+   */
+  private List<ExchangeStatus> applyOrders(List<ExchangeOrder> orders,
+                                           Map<UUID, Map<Currency, BigDecimal>> wallets,
+                                           List<ExchangeOrder> executed) {
+    var statuses = new ArrayList<ExchangeStatus>(orders.size());
+    for (var order : orders) {
+      var wallet = wallets.get(order.getAccountId());
+      if (wallet == null) {
+        statuses.add(ExchangeStatus.ACCOUNT_NOT_FOUND);
+        continue;
+      }
+      var sourceAmount = wallet.getOrDefault(order.getSourceCurrency(), BigDecimal.ZERO);
+      if (sourceAmount.compareTo(order.getSourceAmount()) < 0) {
+        statuses.add(ExchangeStatus.NOT_ENOUGH_FUNDS);
+        continue;
+      }
+      wallet.put(order.getSourceCurrency(), sourceAmount.subtract(order.getSourceAmount()));
+      wallet.merge(order.getTargetCurrency(), order.getTargetAmount(), BigDecimal::add);
+      executed.add(order);
+      statuses.add(ExchangeStatus.EXECUTED);
+    }
+    return statuses;
+  }
+
+  /**
+   * Pages by the ledger key instead of an offset, so that every page is read straight from the
+   * {@code (account_id, id)} index however deep into the history it is.
+   */
+  @Override
+  @Transactional(readOnly = true)
+  public List<ExchangeTransaction> findTransactions(UUID accountId, Long cursor, int limit) {
+    if (cursor == null) {
+      return jpaExchangeTransactionRepository.findByAccountIdOrderByIdDesc(accountId,
+          Limit.of(limit));
+    }
+    return jpaExchangeTransactionRepository.findByAccountIdAndIdLessThanOrderByIdDesc(accountId,
+        cursor, Limit.of(limit));
+  }
+
+  /**
+   * Ledger entries are only ever inserted, in one JDBC batch per transaction.
+   */
+  private void appendTransactions(List<ExchangeOrder> orders) {
+    if (orders.isEmpty()) {
+      return;
+    }
+    jdbcTemplate.getJdbcTemplate().batchUpdate(INSERT_TRANSACTION_SQL, orders.stream()
+        .map(order -> new Object[] {order.getAccountId(), order.getSourceCurrency().name(),
+            order.getSourceAmount(), order.getTargetCurrency().name(),
+            order.getTargetAmount(), order.getPrice(), order.getRate(),
+            order.getRateEffectiveDate()})
+        .toList());
+  }
+
+  private void saveWallets(Set<UUID> accountIds, Map<UUID, Map<Currency, BigDecimal>> wallets,
+                           Map<UUID, Set<Currency>> stored) {
+    var updates = new ArrayList<Object[]>();
+    var inserts = new ArrayList<Object[]>();
+    for (var accountId : accountIds) {
+      wallets.get(accountId).forEach((currency, amount) -> {
+        if (stored.get(accountId).contains(currency)) {
+          updates.add(new Object[] {amount, accountId, currency.name()});
+        } else {
+          inserts.add(new Object[] {UUID.randomUUID(), currency.name(), amount, accountId});
+        }
+      });
+    }
+    if (!updates.isEmpty()) {
+      jdbcTemplate.getJdbcTemplate().batchUpdate(UPDATE_BALANCE_SQL, updates);
+    }
+    if (!inserts.isEmpty()) {
+      jdbcTemplate.getJdbcTemplate().batchUpdate(INSERT_BALANCE_SQL, inserts);
+    }
   }
 }
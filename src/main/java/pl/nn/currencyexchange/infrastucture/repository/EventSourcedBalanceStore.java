@@ -0,0 +1,212 @@
+package pl.nn.currencyexchange.infrastucture.repository;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import pl.nn.currencyexchange.domain.enums.Currency;
+import pl.nn.currencyexchange.infrastucture.configuration.properties.ExchangeProperties;
+
+/**
+ * Balances of event-sourced accounts, replayed from the latest snapshot of the account and the
+ * ledger entries appended after it. The first event-sourced exchange of an account seeds its
+ * snapshot and projection from the current balances, which already reflect all of its ledger.
+ * Must be called within a transaction.
+ */
+@Component
+@RequiredArgsConstructor
+class EventSourcedBalanceStore {
+
+  private static final String FIND_SNAPSHOTTED_ACCOUNTS_SQL = """
+      SELECT DISTINCT account_id FROM balance_snapshot WHERE account_id IN (:accountIds)""";
+  private static final String LOCK_ACCOUNTS_SQL = """
+      SELECT id FROM account WHERE id IN (:accountIds) ORDER BY id FOR UPDATE""";
+  private static final String SEED_SNAPSHOTS_SQL = """
+      INSERT INTO balance_snapshot (account_id, currency, amount, ledger_id)
+      SELECT b.account_id, b.currency, b.amount,
+             COALESCE((SELECT MAX(t.id) FROM exchange_transaction t
+                       WHERE t.account_id = b.account_id), 0)
+      FROM currency_balance b
+      WHERE b.account_id IN (:accountIds)
+        AND NOT EXISTS (SELECT 1 FROM balance_snapshot s WHERE s.account_id = b.account_id)""";
+  private static final String SEED_PROJECTIONS_SQL = """
+      INSERT INTO balance_projection (account_id, ledger_id)
+      SELECT a.id, COALESCE((SELECT MAX(t.id) FROM exchange_transaction t
+                             WHERE t.account_id = a.id), 0)
+      FROM account a
+      WHERE a.id IN (:accountIds)
+        AND NOT EXISTS (SELECT 1 FROM balance_projection p WHERE p.account_id = a.id)""";
+  private static final String FIND_SNAPSHOTS_SQL = """
+      SELECT account_id, currency, amount, ledger_id FROM balance_snapshot
+      WHERE account_id IN (:accountIds)
+      ORDER BY account_id, currency""";
+  /**
+   * Snapshot rows are locked in key order, so that concurrent exchanges cannot deadlock.
+   */
+  private static final String LOCK_SNAPSHOTS_SQL = FIND_SNAPSHOTS_SQL + " FOR UPDATE";
+  private static final String FIND_ENTRIES_SQL = """
+      SELECT id, source_currency, source_amount, target_currency, target_amount
+      FROM exchange_transaction
+      WHERE account_id = :accountId AND id > :ledgerId
+      ORDER BY id""";
+  private static final String FIND_LAST_ENTRIES_SQL = """
+      SELECT account_id, MAX(id) AS ledger_id FROM exchange_transaction
+      WHERE account_id IN (:accountIds)
+      GROUP BY account_id""";
+  private static final String UPDATE_SNAPSHOT_SQL = """
+      UPDATE balance_snapshot SET amount = ?, ledger_id = ?
+      WHERE account_id = ? AND currency = ?""";
+  private static final String INSERT_SNAPSHOT_SQL = """
+      INSERT INTO balance_snapshot (account_id, currency, amount, ledger_id)
+      VALUES (?, ?, ?, ?)""";
+  private static final String LOCK_PENDING_PROJECTIONS_SQL = """
+      SELECT p.account_id FROM balance_projection p
+      WHERE EXISTS (SELECT 1 FROM exchange_transaction t
+                    WHERE t.account_id = p.account_id AND t.id > p.ledger_id)
+      ORDER BY p.account_id
+      LIMIT :limit
+      FOR UPDATE""";
+  private static final String UPDATE_PROJECTION_SQL = """
+      UPDATE balance_projection SET ledger_id = ? WHERE account_id = ?""";
+
+  private final NamedParameterJdbcTemplate jdbcTemplate;
+  private final ExchangeProperties exchangeProperties;
+
+  /**
+   * Locks the snapshots of the accounts, so that their ledgers cannot be appended to
+   * concurrently, and replays them. Missing accounts are absent from the result.
+   */
+  Map<UUID, Replay> lockAndReplay(List<UUID> accountIds) {
+    seed(accountIds);
+    return replay(accountIds, LOCK_SNAPSHOTS_SQL);
+  }
+
+  Map<UUID, Replay> replay(List<UUID> accountIds) {
+    return replay(accountIds, FIND_SNAPSHOTS_SQL);
+  }
+
+  /**
+   * Snapshots the replayed balances of the accounts whose ledger grew by at least the snapshot
+   * interval since their last snapshot, including the given number of newly appended entries.
+   */
+  void snapshotIfDue(Map<UUID, Replay> replays, Map<UUID, Integer> appendedEntries) {
+    var interval = Math.max(1, exchangeProperties.getEventSourcing().getSnapshotInterval());
+    var due = appendedEntries.entrySet().stream()
+        .filter(entry -> replays.get(entry.getKey()).getReplayedEntries() + entry.getValue()
+            >= interval)
+        .map(Map.Entry::getKey)
+        .toList();
+    if (due.isEmpty()) {
+      return;
+    }
+    var updates = new ArrayList<Object[]>();
+    var inserts = new ArrayList<Object[]>();
+    jdbcTemplate.query(FIND_LAST_ENTRIES_SQL, Map.of("accountIds", due), row -> {
+      var accountId = row.getObject("account_id", UUID.class);
+      var ledgerId = row.getLong("ledger_id");
+      var replay = replays.get(accountId);
+      replay.getBalances().forEach((currency, amount) -> {
+        if (replay.getSnapshotCurrencies().contains(currency)) {
+          updates.add(new Object[] {amount, ledgerId, accountId, currency.name()});
+        } else {
+          inserts.add(new Object[] {accountId, currency.name(), amount, ledgerId});
+        }
+      });
+    });
+    if (!updates.isEmpty()) {
+      jdbcTemplate.getJdbcTemplate().batchUpdate(UPDATE_SNAPSHOT_SQL, updates);
+    }
+    if (!inserts.isEmpty()) {
+      jdbcTemplate.getJdbcTemplate().batchUpdate(INSERT_SNAPSHOT_SQL, inserts);
+    }
+  }
+
+  /**
+   * Locks the projections of at most the given number of accounts with ledger entries not yet
+   * reflected in their currency balances.
+   */
+  List<UUID> lockPendingProjections(int limit) {
+    return jdbcTemplate.queryForList(LOCK_PENDING_PROJECTIONS_SQL, Map.of("limit", limit),
+        UUID.class);
+  }
+
+  void markProjected(Map<UUID, Replay> replays) {
+    jdbcTemplate.getJdbcTemplate().batchUpdate(UPDATE_PROJECTION_SQL, replays.entrySet().stream()
+        .map(entry -> new Object[] {entry.getValue().getLastLedgerId(), entry.getKey()})
+        .toList());
+  }
+
+  /**
+   * Accounts are locked before seeding, so that the first exchanges of an account running
+   * concurrently seed it only once.
+   */
+  private void seed(List<UUID> accountIds) {
+    var snapshotted = jdbcTemplate.queryForList(FIND_SNAPSHOTTED_ACCOUNTS_SQL,
+        Map.of("accountIds", accountIds), UUID.class);
+    if (snapshotted.size() == accountIds.size()) {
+      return;
+    }
+    var missing = accountIds.stream().filter(id -> !snapshotted.contains(id)).toList();
+    var parameters = Map.of("accountIds", missing);
+    jdbcTemplate.queryForList(LOCK_ACCOUNTS_SQL, parameters, UUID.class);
+    jdbcTemplate.update(SEED_SNAPSHOTS_SQL, parameters);
+    jdbcTemplate.update(SEED_PROJECTIONS_SQL, parameters);
+  }
+
+  private Map<UUID, Replay> replay(List<UUID> accountIds, String snapshotsSql) {
+    var replays = new HashMap<UUID, Replay>();
+    jdbcTemplate.query(snapshotsSql, Map.of("accountIds", accountIds), row -> {
+      var ledgerId = row.getLong("ledger_id");
+      replays.computeIfAbsent(row.getObject("account_id", UUID.class), id -> new Replay(ledgerId))
+          .snapshot(Currency.valueOf(row.getString("currency")), row.getBigDecimal("amount"));
+    });
+    replays.forEach((accountId, replay) -> jdbcTemplate.query(FIND_ENTRIES_SQL,
+        Map.of("accountId", accountId, "ledgerId", replay.getLastLedgerId()),
+        row -> {
+          replay.apply(row.getLong("id"),
+              Currency.valueOf(row.getString("source_currency")),
+              row.getBigDecimal("source_amount"),
+              Currency.valueOf(row.getString("target_currency")),
+              row.getBigDecimal("target_amount"));
+        }));
+    return replays;
+  }
+
+  /**
+   * Balances of an account after applying its ledger entries on top of its latest snapshot.
+   */
+  @Getter
+  static final class Replay {
+
+    private final Map<Currency, BigDecimal> balances = new EnumMap<>(Currency.class);
+    private final Set<Currency> snapshotCurrencies = EnumSet.noneOf(Currency.class);
+    private long lastLedgerId;
+    private int replayedEntries;
+
+    private Replay(long snapshotLedgerId) {
+      this.lastLedgerId = snapshotLedgerId;
+    }
+
+    private void snapshot(Currency currency, BigDecimal amount) {
+      balances.put(currency, amount);
+      snapshotCurrencies.add(currency);
+    }
+
+    private void apply(long ledgerId, Currency sourceCurrency, BigDecimal sourceAmount,
+                       Currency targetCurrency, BigDecimal targetAmount) {
+      balances.merge(sourceCurrency, sourceAmount.negate(), BigDecimal::add);
+      balances.merge(targetCurrency, targetAmount, BigDecimal::add);
+      lastLedgerId = ledgerId;
+      replayedEntries++;
+    }
+  }
+}
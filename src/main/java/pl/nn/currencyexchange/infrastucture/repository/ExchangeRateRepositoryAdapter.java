@@ -0,0 +1,89 @@
+package pl.nn.currencyexchange.infrastucture.repository;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Component;
+import pl.nn.currencyexchange.domain.enums.Currency;
+import pl.nn.currencyexchange.domain.model.ExchangeRate;
+import pl.nn.currencyexchange.domain.repository.ExchangeRateRepository;
+
+@Component
+@RequiredArgsConstructor
+public class ExchangeRateRepositoryAdapter implements ExchangeRateRepository {
+
+  private static final String MERGE_RATE_SQL = """
+      MERGE INTO exchange_rate (currency, effective_date, bid, ask, fetched_at)
+      KEY (currency, effective_date)
+      VALUES (:currency, :effectiveDate, :bid, :ask, :fetchedAt)""";
+  private static final String FIND_LATEST_SQL = """
+      SELECT currency, effective_date, bid, ask, fetched_at FROM exchange_rate
+      WHERE effective_date = (SELECT MAX(effective_date) FROM exchange_rate)""";
+  private static final String FIND_EFFECTIVE_ON_SQL = """
+      SELECT currency, effective_date, bid, ask FROM exchange_rate
+      WHERE currency = :currency AND effective_date <= :date
+      ORDER BY effective_date DESC
+      LIMIT 1""";
+
+  private final NamedParameterJdbcTemplate jdbcTemplate;
+
+  @Override
+  public void saveAll(List<ExchangeRate> rates, Instant fetchedAt) {
+    var fetchedAtTimestamp = fetchedAt.atOffset(ZoneOffset.UTC);
+    jdbcTemplate.batchUpdate(MERGE_RATE_SQL, rates.stream()
+        .map(rate -> new MapSqlParameterSource()
+            .addValue("currency", rate.getCurrency().name())
+            .addValue("effectiveDate", rate.getEffectiveDate())
+            .addValue("bid", rate.getBid())
+            .addValue("ask", rate.getAsk())
+            .addValue("fetchedAt", fetchedAtTimestamp))
+        .toArray(SqlParameterSource[]::new));
+  }
+
+  @Override
+  public Optional<StoredRates> findLatest() {
+    return jdbcTemplate.query(FIND_LATEST_SQL, resultSet -> {
+      Instant fetchedAt = null;
+      var rates = new ArrayList<ExchangeRate>();
+      while (resultSet.next()) {
+        rates.add(mapRate(resultSet));
+        var rowFetchedAt = resultSet.getObject("fetched_at", OffsetDateTime.class).toInstant();
+        if (fetchedAt == null || rowFetchedAt.isAfter(fetchedAt)) {
+          fetchedAt = rowFetchedAt;
+        }
+      }
+      return rates.isEmpty()
+          ? Optional.empty()
+          : Optional.of(new StoredRates(List.copyOf(rates), fetchedAt));
+    });
+  }
+
+  @Override
+  public Optional<ExchangeRate> findEffectiveOn(Currency currency, LocalDate date) {
+    return jdbcTemplate.query(FIND_EFFECTIVE_ON_SQL,
+            Map.of("currency", currency.name(), "date", date),
+            (resultSet, rowNum) -> mapRate(resultSet))
+        .stream()
+        .findFirst();
+  }
+
+  private static ExchangeRate mapRate(ResultSet resultSet) throws SQLException {
+    return ExchangeRate.builder()
+        .currency(Currency.valueOf(resultSet.getString("currency")))
+        .effectiveDate(resultSet.getObject("effective_date", LocalDate.class))
+        .bid(resultSet.getBigDecimal("bid"))
+        .ask(resultSet.getBigDecimal("ask"))
+        .build();
+  }
+}
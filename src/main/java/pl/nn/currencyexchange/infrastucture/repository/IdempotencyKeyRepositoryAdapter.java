@@ -0,0 +1,63 @@
+package pl.nn.currencyexchange.infrastucture.repository;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Map;
+import java.util.Optional;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import pl.nn.currencyexchange.domain.repository.IdempotencyKeyRepository;
+
+@Component
+@RequiredArgsConstructor
+public class IdempotencyKeyRepositoryAdapter implements IdempotencyKeyRepository {
+
+  private static final String FIND_RESPONSE_SQL = """
+      SELECT request_hash, response FROM idempotency_key
+      WHERE request_key = :key AND created_at >= :notBefore AND response IS NOT NULL""";
+  private static final String DELETE_EXPIRED_KEY_SQL = """
+      DELETE FROM idempotency_key WHERE request_key = :key AND created_at < :notBefore""";
+  private static final String INSERT_KEY_SQL = """
+      INSERT INTO idempotency_key (request_key, request_hash, created_at)
+      VALUES (:key, :requestHash, :createdAt)""";
+  private static final String UPDATE_RESPONSE_SQL = """
+      UPDATE idempotency_key SET response = :response WHERE request_key = :key""";
+  private static final String DELETE_EXPIRED_SQL = """
+      DELETE FROM idempotency_key WHERE created_at < :createdAt""";
+
+  private final NamedParameterJdbcTemplate jdbcTemplate;
+
+  @Override
+  public Optional<StoredResponse> findResponse(String key, Instant notBefore) {
+    return jdbcTemplate.query(FIND_RESPONSE_SQL,
+            Map.of("key", key, "notBefore", toTimestamp(notBefore)),
+            (row, rowNum) -> new StoredResponse(row.getString("request_hash"),
+                row.getString("response")))
+        .stream()
+        .findFirst();
+  }
+
+  @Override
+  public void claim(String key, String requestHash, Instant createdAt, Instant notBefore) {
+    jdbcTemplate.update(DELETE_EXPIRED_KEY_SQL,
+        Map.of("key", key, "notBefore", toTimestamp(notBefore)));
+    jdbcTemplate.update(INSERT_KEY_SQL,
+        Map.of("key", key, "requestHash", requestHash, "createdAt", toTimestamp(createdAt)));
+  }
+
+  @Override
+  public void saveResponse(String key, String response) {
+    jdbcTemplate.update(UPDATE_RESPONSE_SQL, Map.of("key", key, "response", response));
+  }
+
+  @Override
+  public int deleteOlderThan(Instant createdAt) {
+    return jdbcTemplate.update(DELETE_EXPIRED_SQL, Map.of("createdAt", toTimestamp(createdAt)));
+  }
+
+  private static OffsetDateTime toTimestamp(Instant instant) {
+    return instant.atOffset(ZoneOffset.UTC);
+  }
+}
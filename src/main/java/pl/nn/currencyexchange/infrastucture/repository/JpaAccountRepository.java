@@ -1,10 +1,34 @@
 package pl.nn.currencyexchange.infrastucture.repository;
 
+import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import pl.nn.currencyexchange.domain.entity.Account;
 
 @Repository
 public interface JpaAccountRepository extends JpaRepository<Account, UUID> {
+
+  /**
+   * Loads the account together with its owner and all currency balances in a single query.
+   */
+  @EntityGraph(attributePaths = {"owner", "wallet"})
+  Optional<Account> findWithOwnerAndWalletById(UUID id);
+
+  /**
+   * Reads the owner and balances of the account as scalar rows, without managing any entity.
+   */
+  @Query("""
+      select o.firstName as firstName, o.lastName as lastName,
+             b.currency as currency, b.amount as amount
+      from Account a
+      join a.owner o
+      left join a.wallet b
+      where a.id = :id
+      order by b.currency""")
+  List<AccountBalanceView> findBalanceById(@Param("id") UUID id);
 }
@@ -0,0 +1,22 @@
+package pl.nn.currencyexchange.infrastucture.repository;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import pl.nn.currencyexchange.domain.entity.CurrencyBalance;
+import pl.nn.currencyexchange.domain.enums.Currency;
+
+@Repository
+public interface JpaCurrencyBalanceRepository extends JpaRepository<CurrencyBalance, UUID> {
+
+  @Modifying
+  @Query("""
+      UPDATE CurrencyBalance b SET b.amount = b.amount - :amount, b.version = b.version + 1
+      WHERE b.account.id = :accountId AND b.currency = :currency AND b.amount >= :amount""")
+  int debit(@Param("accountId") UUID accountId, @Param("currency") Currency currency,
+            @Param("amount") BigDecimal amount);
+}
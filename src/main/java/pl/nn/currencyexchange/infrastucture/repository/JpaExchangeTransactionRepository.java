@@ -0,0 +1,18 @@
+package pl.nn.currencyexchange.infrastucture.repository;
+
+import java.util.List;
+import java.util.UUID;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import pl.nn.currencyexchange.domain.entity.ExchangeTransaction;
+
+@Repository
+public interface JpaExchangeTransactionRepository
+    extends JpaRepository<ExchangeTransaction, Long> {
+
+  List<ExchangeTransaction> findByAccountIdOrderByIdDesc(UUID accountId, Limit limit);
+
+  List<ExchangeTransaction> findByAccountIdAndIdLessThanOrderByIdDesc(UUID accountId, Long id,
+                                                                       Limit limit);
+}
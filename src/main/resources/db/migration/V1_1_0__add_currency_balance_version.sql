@@ -0,0 +1 @@
+ALTER TABLE currency_balance ADD COLUMN IF NOT EXISTS version bigint DEFAULT 0 NOT NULL;
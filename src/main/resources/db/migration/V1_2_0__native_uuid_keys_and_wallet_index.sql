@@ -0,0 +1,58 @@
+CREATE TABLE owner_v2
+(
+    id uuid NOT NULL PRIMARY KEY,
+    first_name varchar(255) NOT NULL,
+    last_name varchar(255) NOT NULL
+);
+
+INSERT INTO owner_v2 (id, first_name, last_name)
+SELECT CAST(id AS uuid), first_name, last_name FROM owner;
+
+CREATE TABLE account_v2
+(
+    id uuid NOT NULL PRIMARY KEY,
+    owner_id uuid NOT NULL
+);
+
+INSERT INTO account_v2 (id, owner_id)
+SELECT CAST(id AS uuid), CAST(owner_id AS uuid) FROM account;
+
+CREATE TABLE currency_balance_v2
+(
+    id uuid NOT NULL PRIMARY KEY,
+    currency varchar(3) NOT NULL,
+    amount numeric(38, 2) NOT NULL,
+    version bigint DEFAULT 0 NOT NULL,
+    account_id uuid NOT NULL
+);
+
+-- Currencies written by the ORDINAL mapping are translated to their names. Duplicate balances of
+-- the same currency, which nothing prevented so far, are merged into one.
+INSERT INTO currency_balance_v2 (id, currency, amount, version, account_id)
+SELECT MIN(id), currency, SUM(amount), MAX(version), account_id
+FROM (SELECT CAST(id AS uuid) AS id,
+             CASE CAST(currency AS varchar(3))
+                 WHEN '0' THEN 'PLN'
+                 WHEN '1' THEN 'USD'
+                 ELSE CAST(currency AS varchar(3))
+             END AS currency,
+             amount,
+             version,
+             CAST(account_id AS uuid) AS account_id
+      FROM currency_balance) balances
+GROUP BY account_id, currency;
+
+DROP TABLE currency_balance;
+DROP TABLE account;
+DROP TABLE owner;
+
+ALTER TABLE owner_v2 RENAME TO owner;
+ALTER TABLE account_v2 RENAME TO account;
+ALTER TABLE currency_balance_v2 RENAME TO currency_balance;
+
+ALTER TABLE account ADD CONSTRAINT uk_account_owner UNIQUE (owner_id);
+ALTER TABLE account ADD CONSTRAINT fk_account_to_owner FOREIGN KEY (owner_id) REFERENCES owner (id);
+
+CREATE UNIQUE INDEX uk_currency_balance_account_currency ON currency_balance (account_id, currency);
+ALTER TABLE currency_balance ADD CONSTRAINT fk_currency_balance_to_account
+    FOREIGN KEY (account_id) REFERENCES account (id);
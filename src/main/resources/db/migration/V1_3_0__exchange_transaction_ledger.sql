@@ -0,0 +1,18 @@
+-- Append-only ledger of executed exchanges. The identity key only grows, so rows are always
+-- appended at the end of the primary key and the account index serves keyset pagination.
+CREATE TABLE exchange_transaction
+(
+    id bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    account_id uuid NOT NULL,
+    source_currency varchar(3) NOT NULL,
+    source_amount numeric(38, 2) NOT NULL,
+    target_currency varchar(3) NOT NULL,
+    target_amount numeric(38, 2) NOT NULL,
+    rate numeric(19, 4) NOT NULL,
+    rate_effective_date date NOT NULL,
+    executed_at timestamp(6) with time zone DEFAULT CURRENT_TIMESTAMP NOT NULL
+);
+
+CREATE INDEX ix_exchange_transaction_account_id ON exchange_transaction (account_id, id);
+ALTER TABLE exchange_transaction ADD CONSTRAINT fk_exchange_transaction_to_account
+    FOREIGN KEY (account_id) REFERENCES account (id);
@@ -0,0 +1,23 @@
+-- Balances of an account as of the given ledger entry, the starting point of replaying its
+-- ledger. Every currency of an account is snapshotted at the same entry.
+CREATE TABLE balance_snapshot
+(
+    account_id uuid NOT NULL,
+    currency varchar(3) NOT NULL,
+    amount numeric(38, 2) NOT NULL,
+    ledger_id bigint NOT NULL,
+    PRIMARY KEY (account_id, currency)
+);
+
+ALTER TABLE balance_snapshot ADD CONSTRAINT fk_balance_snapshot_to_account
+    FOREIGN KEY (account_id) REFERENCES account (id);
+
+-- Last ledger entry reflected in the currency balances of an event-sourced account.
+CREATE TABLE balance_projection
+(
+    account_id uuid NOT NULL PRIMARY KEY,
+    ledger_id bigint NOT NULL
+);
+
+ALTER TABLE balance_projection ADD CONSTRAINT fk_balance_projection_to_account
+    FOREIGN KEY (account_id) REFERENCES account (id);
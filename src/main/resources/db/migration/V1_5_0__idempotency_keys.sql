@@ -0,0 +1,10 @@
+-- Responses of requests sent with an idempotency key, returned again for repeated requests
+-- once they were evicted from memory. Rows older than the configured TTL are purged.
+CREATE TABLE idempotency_key
+(
+    request_key varchar(320) NOT NULL PRIMARY KEY,
+    response clob NOT NULL,
+    created_at timestamp(6) with time zone NOT NULL
+);
+
+CREATE INDEX ix_idempotency_key_created_at ON idempotency_key (created_at);
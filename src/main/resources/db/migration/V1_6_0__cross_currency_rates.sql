@@ -0,0 +1,15 @@
+-- The price of one unit of the target currency in the source currency is recorded next to the
+-- NBP rate, as cross rates and sold currencies need more than the 4 decimal places of NBP. The
+-- NBP rate keeps its meaning, the rate in PLN of the foreign currency, and is empty for pairs
+-- of two foreign currencies. Prices of existing rows are derived from their rates. The rate is
+-- widened to the 6 decimal places stored in exchange_rate, as some table C rates have them.
+ALTER TABLE exchange_transaction ADD COLUMN price numeric(19, 10);
+
+UPDATE exchange_transaction
+SET price = CASE WHEN target_currency = 'PLN' THEN ROUND(1 / rate, 10) ELSE rate END;
+
+ALTER TABLE exchange_transaction ALTER COLUMN price SET NOT NULL;
+
+ALTER TABLE exchange_transaction ALTER COLUMN rate SET DATA TYPE numeric(19, 6);
+
+ALTER TABLE exchange_transaction ALTER COLUMN rate SET NULL;
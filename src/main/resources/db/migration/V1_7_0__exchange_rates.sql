@@ -0,0 +1,13 @@
+-- Every NBP table C fetched by the service, so that the rate cache survives restarts while NBP is
+-- unreachable and past rates can be looked up by currency and effective date.
+CREATE TABLE exchange_rate
+(
+    currency varchar(3) NOT NULL,
+    effective_date date NOT NULL,
+    bid numeric(19, 6) NOT NULL,
+    ask numeric(19, 6) NOT NULL,
+    fetched_at timestamp(6) with time zone NOT NULL,
+    PRIMARY KEY (currency, effective_date)
+);
+
+CREATE INDEX ix_exchange_rate_effective_date ON exchange_rate (effective_date);
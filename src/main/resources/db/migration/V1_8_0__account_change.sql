@@ -0,0 +1,12 @@
+-- Accounts whose balances changed, appended after the change committed and polled by every
+-- instance of the service to evict the balances it cached. Rows older than the configured
+-- retention are purged.
+CREATE TABLE account_change
+(
+    id bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    account_id uuid NOT NULL,
+    origin uuid NOT NULL,
+    changed_at timestamp(6) with time zone DEFAULT CURRENT_TIMESTAMP NOT NULL
+);
+
+CREATE INDEX ix_account_change_changed_at ON account_change (changed_at);
@@ -0,0 +1,6 @@
+-- Keys are claimed by inserting them without a response, in the transaction executing the
+-- request and storing its response. The hash of the request body rejects keys repeated with a
+-- different body, rows stored before it was added have no hash and match any body.
+ALTER TABLE idempotency_key ADD COLUMN request_hash varchar(64);
+
+ALTER TABLE idempotency_key ALTER COLUMN response SET NULL;
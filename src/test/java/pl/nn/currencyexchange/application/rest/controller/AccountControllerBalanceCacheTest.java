@@ -0,0 +1,134 @@
+package pl.nn.currencyexchange.application.rest.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.TestPropertySource;
+import pl.nn.currencyexchange.application.rest.dto.AccountBalanceQuery;
+import pl.nn.currencyexchange.application.rest.dto.BatchExchangeMoneyCommand;
+import pl.nn.currencyexchange.application.rest.dto.BatchExchangeMoneyQuery;
+import pl.nn.currencyexchange.domain.enums.Currency;
+import pl.nn.currencyexchange.domain.service.impl.BalanceProjector;
+import pl.nn.currencyexchange.infrastucture.configuration.properties.ExchangeProperties;
+
+@TestPropertySource(properties = "exchange.event-sourcing.projection-interval=PT1H")
+class AccountControllerBalanceCacheTest extends AccountControllerTestSupport {
+
+  private static final String BUY_ONE_USD = "{\"currency\": \"USD\", \"amount\": 1}";
+  private static final int EXCHANGES = 20;
+  private static final int READERS = 8;
+
+  @Autowired
+  private ExchangeProperties exchangeProperties;
+
+  @Autowired
+  private BalanceProjector balanceProjector;
+
+  @BeforeEach
+  void setUp() {
+    stubNbpRates();
+  }
+
+  @AfterEach
+  void tearDown() {
+    exchangeProperties.setMode(ExchangeProperties.Mode.ATOMIC);
+  }
+
+  @Test
+  void shouldNotReturnStaleBalanceAfterCompletedExchange() throws Exception {
+    // given
+    var accountId = createAccount();
+    var hitsBefore = cacheGets("hit");
+    var reading = new AtomicBoolean(true);
+    var readers = new ArrayList<Future<?>>();
+
+    // when
+    var usdAfterExchange = new ArrayList<BigDecimal>();
+    try (var executor = Executors.newFixedThreadPool(READERS)) {
+      for (int i = 0; i < READERS; i++) {
+        readers.add(executor.submit(() -> {
+          while (reading.get()) {
+            getBalance(accountId);
+          }
+        }));
+      }
+      for (int i = 0; i < EXCHANGES; i++) {
+        var response = restTemplate.postForEntity("/account/" + accountId + "/exchange",
+            jsonRequest(BUY_ONE_USD), AccountBalanceQuery.class);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        usdAfterExchange.add(getAmount(getBalance(accountId), Currency.USD));
+      }
+      reading.set(false);
+    }
+
+    // then
+    for (Future<?> reader : readers) {
+      reader.get();
+    }
+    for (int i = 0; i < EXCHANGES; i++) {
+      assertThat(usdAfterExchange.get(i)).isEqualByComparingTo(BigDecimal.valueOf(i + 1));
+    }
+    assertThat(cacheGets("hit")).isGreaterThan(hitsBefore);
+    assertThat(cacheGets("miss")).isPositive();
+  }
+
+  @Test
+  void shouldInvalidateBalanceOnOptimisticAndBatchExchange() {
+    // given
+    exchangeProperties.setMode(ExchangeProperties.Mode.OPTIMISTIC);
+    var accountId = createAccount();
+    getBalance(accountId);
+
+    // when
+    restTemplate.postForEntity("/account/" + accountId + "/exchange",
+        jsonRequest(BUY_ONE_USD), AccountBalanceQuery.class);
+    var afterOptimistic = getBalance(accountId);
+    var batch = restTemplate.postForEntity("/account/exchange/batch",
+        BatchExchangeMoneyCommand.builder()
+            .orders(List.of(order(accountId, Currency.USD, "2.00")))
+            .build(),
+        BatchExchangeMoneyQuery.class);
+    var afterBatch = getBalance(accountId);
+
+    // then
+    assertThat(batch.getStatusCode()).isEqualTo(HttpStatus.OK);
+    assertThat(getAmount(afterOptimistic, Currency.USD)).isEqualByComparingTo("1.00");
+    assertThat(getAmount(afterBatch, Currency.USD)).isEqualByComparingTo("3.00");
+  }
+
+  @Test
+  void shouldInvalidateBalanceOfProjectedAccount() {
+    // given
+    exchangeProperties.setMode(ExchangeProperties.Mode.EVENT_SOURCED);
+    var accountId = createAccount();
+    restTemplate.postForEntity("/account/" + accountId + "/exchange",
+        jsonRequest(BUY_ONE_USD), AccountBalanceQuery.class);
+    var beforeProjection = getBalance(accountId);
+
+    // when
+    balanceProjector.project();
+    var afterProjection = getBalance(accountId);
+
+    // then
+    assertThat(getAmount(beforeProjection, Currency.USD)).isZero();
+    assertThat(getAmount(afterProjection, Currency.USD)).isEqualByComparingTo("1.00");
+  }
+
+  private double cacheGets(String result) {
+    var metric = restTemplate.getForObject(
+        "/actuator/metrics/cache.gets?tag=cache:accountBalances&tag=result:" + result,
+        JsonNode.class);
+    return metric.at("/measurements/0/value").asDouble();
+  }
+}
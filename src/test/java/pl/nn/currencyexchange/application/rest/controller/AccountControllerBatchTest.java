@@ -0,0 +1,78 @@
+package pl.nn.currencyexchange.application.rest.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import pl.nn.currencyexchange.application.rest.dto.BatchExchangeMoneyCommand;
+import pl.nn.currencyexchange.application.rest.dto.BatchExchangeMoneyQuery;
+import pl.nn.currencyexchange.domain.enums.Currency;
+import pl.nn.currencyexchange.domain.enums.ExchangeStatus;
+
+class AccountControllerBatchTest extends AccountControllerTestSupport {
+
+  private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+  @BeforeEach
+  void setUp() {
+    stubNbpRates();
+  }
+
+  @Test
+  void shouldApplyOrdersInSequenceAndReportPartialFailures() throws Exception {
+    // given
+    var firstAccountId = createAccount();
+    var secondAccountId = createAccount();
+    var missingAccountId = UUID.randomUUID();
+    var command = BatchExchangeMoneyCommand.builder()
+        .orders(List.of(
+            order(firstAccountId, Currency.USD, "10.00"),
+            order(secondAccountId, Currency.USD, "20.00"),
+            order(firstAccountId, Currency.PLN, "20.00"),
+            order(missingAccountId, Currency.USD, "10.00"),
+            order(secondAccountId, Currency.USD, "1000.00")))
+        .build();
+
+    // when
+    var response = mockMvc.perform(post("/account/exchange/batch")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(OBJECT_MAPPER.writeValueAsString(command)))
+        .andExpect(status().isOk())
+        .andReturn()
+        .getResponse();
+
+    // then
+    var result = OBJECT_MAPPER.readValue(response.getContentAsString(),
+        BatchExchangeMoneyQuery.class);
+    assertThat(result.getResults())
+        .extracting(BatchExchangeMoneyQuery.Result::getStatus)
+        .containsExactly(ExchangeStatus.EXECUTED, ExchangeStatus.EXECUTED,
+            ExchangeStatus.EXECUTED, ExchangeStatus.ACCOUNT_NOT_FOUND,
+            ExchangeStatus.NOT_ENOUGH_FUNDS);
+
+    var firstBalance = getBalance(firstAccountId);
+    assertThat(getAmount(firstBalance, Currency.PLN)).isEqualByComparingTo("79.69");
+    assertThat(getAmount(firstBalance, Currency.USD)).isEqualByComparingTo("4.94");
+    var secondBalance = getBalance(secondAccountId);
+    assertThat(getAmount(secondBalance, Currency.PLN)).isEqualByComparingTo("19.38");
+    assertThat(getAmount(secondBalance, Currency.USD)).isEqualByComparingTo("20.00");
+  }
+
+  @Test
+  void shouldRejectBatchWithInvalidOrder() throws Exception {
+    // given
+    var request = post("/account/exchange/batch")
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(getFileContent("exchangeMoneyBatch__missingAmount.json"));
+
+    // when + then
+    mockMvc.perform(request)
+        .andExpect(status().isBadRequest());
+  }
+}
@@ -0,0 +1,238 @@
+package pl.nn.currencyexchange.application.rest.controller;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.okJson;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.test.annotation.DirtiesContext;
+import pl.nn.currencyexchange.application.rest.dto.AccountBalanceQuery;
+import pl.nn.currencyexchange.application.rest.dto.AccountTransactionsQuery;
+import pl.nn.currencyexchange.application.rest.dto.CreateAccountCommand;
+import pl.nn.currencyexchange.application.rest.dto.ExchangeMoneyCommand;
+import pl.nn.currencyexchange.domain.enums.Currency;
+import pl.nn.currencyexchange.domain.service.impl.BalanceProjector;
+import pl.nn.currencyexchange.infrastucture.configuration.properties.ExchangeProperties;
+
+/**
+ * Starts with a new context, as the first test expects exchange rates not to be cached yet.
+ */
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_CLASS)
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class AccountControllerConcurrencyTest extends AccountControllerTestSupport {
+
+  private static final int CONCURRENT_EXCHANGES = 300;
+  private static final int SAME_ACCOUNT_EXCHANGES = 20;
+  private static final int OPPOSITE_EXCHANGES = 20;
+  private static final List<Currency> NEW_CURRENCIES =
+      List.of(Currency.EUR, Currency.GBP, Currency.CHF, Currency.CAD);
+
+  @Autowired
+  private MeterRegistry meterRegistry;
+
+  @Autowired
+  private ExchangeProperties exchangeProperties;
+
+  @Autowired
+  private BalanceProjector balanceProjector;
+
+  @AfterEach
+  void tearDown() {
+    exchangeProperties.setMode(ExchangeProperties.Mode.ATOMIC);
+    exchangeProperties.getLocking().setMode(ExchangeProperties.LockingMode.OFF);
+  }
+
+  static Stream<Arguments> exchangeModes() {
+    return Arrays.stream(ExchangeProperties.Mode.values())
+        .flatMap(mode -> Arrays.stream(ExchangeProperties.LockingMode.values())
+            .map(lockingMode -> Arguments.of(mode, lockingMode)));
+  }
+
+  @Test
+  @Order(1)
+  void shouldCoalesceConcurrentRateLookupsIntoSingleNbpRequest() throws Exception {
+    // given
+    var accountIds = IntStream.range(0, CONCURRENT_EXCHANGES)
+        .mapToObj(i -> createAccount())
+        .toList();
+
+    wireMockServer.resetRequests();
+    wireMockServer.stubFor(get(urlPathEqualTo(NBP_RATES_PATH))
+        .willReturn(okJson(getFileContent("nbpTables__c.json"))
+            .withFixedDelay(500)));
+
+    var issuedBefore = requestsCount("issued");
+    var coalescedBefore = requestsCount("coalesced");
+
+    // when
+    var start = new CountDownLatch(1);
+    List<Future<HttpStatusCode>> responses = new ArrayList<>();
+    try (var executor = Executors.newFixedThreadPool(64)) {
+      for (UUID accountId : accountIds) {
+        responses.add(executor.submit(() -> {
+          start.await();
+          return exchangeMoney(accountId);
+        }));
+      }
+      start.countDown();
+
+      // then
+      for (Future<HttpStatusCode> response : responses) {
+        assertThat(response.get()).isEqualTo(HttpStatus.OK);
+      }
+    }
+
+    wireMockServer.verify(1, getRequestedFor(urlPathEqualTo(NBP_RATES_PATH)));
+    assertThat(requestsCount("issued") - issuedBefore).isEqualTo(1);
+    assertThat(requestsCount("coalesced") - coalescedBefore).isPositive();
+  }
+
+  @Order(2)
+  @ParameterizedTest
+  @MethodSource("exchangeModes")
+  void shouldNotLoseUpdatesForConcurrentExchangesOnSameAccount(
+      ExchangeProperties.Mode mode, ExchangeProperties.LockingMode lockingMode) throws Exception {
+    // given
+    exchangeProperties.setMode(mode);
+    exchangeProperties.getLocking().setMode(lockingMode);
+    stubNbpRates();
+    var accountId = createAccount();
+
+    // when
+    var start = new CountDownLatch(1);
+    List<Future<HttpStatusCode>> responses = new ArrayList<>();
+    try (var executor = Executors.newFixedThreadPool(SAME_ACCOUNT_EXCHANGES)) {
+      for (int i = 0; i < SAME_ACCOUNT_EXCHANGES; i++) {
+        responses.add(executor.submit(() -> {
+          start.await();
+          return exchangeMoney(accountId);
+        }));
+      }
+      start.countDown();
+    }
+
+    // then
+    var statuses = new ArrayList<HttpStatusCode>();
+    for (Future<HttpStatusCode> response : responses) {
+      statuses.add(response.get());
+    }
+    assertThat(statuses).filteredOn(HttpStatus.OK::equals).hasSize(2);
+    assertThat(statuses).filteredOn(HttpStatus.NOT_ACCEPTABLE::equals)
+        .hasSize(SAME_ACCOUNT_EXCHANGES - 2);
+
+    balanceProjector.project();
+    var balance = restTemplate.getForObject("/account/" + accountId + "/balance",
+        AccountBalanceQuery.class);
+    assertThat(getAmount(balance, Currency.PLN)).isEqualByComparingTo("19.38");
+    assertThat(getAmount(balance, Currency.USD)).isEqualByComparingTo("20");
+  }
+
+  @Test
+  @Order(3)
+  void shouldApplyOppositeAndFirstTimeExchangesOnSameAccount() throws Exception {
+    // given
+    stubNbpRates();
+    var accountId = createAccount(restTemplate, CreateAccountCommand.builder()
+        .firstName("Dawid")
+        .lastName("Testowy")
+        .balance(new BigDecimal("100000.00"))
+        .build());
+    assertThat(exchangeMoney(accountId, Currency.PLN, Currency.USD, "1000"))
+        .isEqualTo(HttpStatus.OK);
+    var orders = new ArrayList<Currency[]>();
+    for (int i = 0; i < OPPOSITE_EXCHANGES; i++) {
+      orders.add(new Currency[] {Currency.PLN, Currency.USD});
+      orders.add(new Currency[] {Currency.USD, Currency.PLN});
+    }
+    for (Currency currency : NEW_CURRENCIES) {
+      orders.add(new Currency[] {Currency.PLN, currency});
+      orders.add(new Currency[] {Currency.USD, currency});
+    }
+
+    // when
+    var start = new CountDownLatch(1);
+    List<Future<HttpStatusCode>> responses = new ArrayList<>();
+    try (var executor = Executors.newFixedThreadPool(orders.size())) {
+      for (Currency[] order : orders) {
+        responses.add(executor.submit(() -> {
+          start.await();
+          return exchangeMoney(accountId, order[0], order[1], "1");
+        }));
+      }
+      start.countDown();
+    }
+
+    // then
+    for (Future<HttpStatusCode> response : responses) {
+      assertThat(response.get()).isEqualTo(HttpStatus.OK);
+    }
+    var transactions = restTemplate.getForObject(
+        "/account/" + accountId + "/transactions?size=500", AccountTransactionsQuery.class)
+        .getTransactions();
+    assertThat(transactions).hasSize(orders.size() + 1);
+    var expected = new EnumMap<Currency, BigDecimal>(Currency.class);
+    expected.put(Currency.PLN, new BigDecimal("100000.00"));
+    transactions.forEach(transaction -> {
+      expected.merge(transaction.getSourceCurrency(), transaction.getSourceAmount().negate(),
+          BigDecimal::add);
+      expected.merge(transaction.getTargetCurrency(), transaction.getTargetAmount(),
+          BigDecimal::add);
+    });
+    var balance = restTemplate.getForObject("/account/" + accountId + "/balance",
+        AccountBalanceQuery.class);
+    assertThat(balance.getWallet()).hasSize(2 + NEW_CURRENCIES.size());
+    expected.forEach((currency, amount) ->
+        assertThat(getAmount(balance, currency)).isEqualByComparingTo(amount));
+    NEW_CURRENCIES.forEach(currency ->
+        assertThat(getAmount(balance, currency)).isEqualByComparingTo("2"));
+  }
+
+  private HttpStatusCode exchangeMoney(UUID accountId, Currency source, Currency target,
+                                       String amount) {
+    return restTemplate.postForEntity("/account/" + accountId + "/exchange",
+            ExchangeMoneyCommand.builder()
+                .sourceCurrency(source)
+                .currency(target)
+                .amount(new BigDecimal(amount))
+                .build(),
+            String.class)
+        .getStatusCode();
+  }
+
+  private HttpStatusCode exchangeMoney(UUID accountId) {
+    return restTemplate.postForEntity("/account/" + accountId + "/exchange",
+            jsonRequest(getFileContent("exchangeMoney__validRequest.json")), String.class)
+        .getStatusCode();
+  }
+
+  private double requestsCount(String outcome) {
+    return meterRegistry.get("exchange.rates.requests")
+        .tag("outcome", outcome)
+        .counter()
+        .count();
+  }
+}
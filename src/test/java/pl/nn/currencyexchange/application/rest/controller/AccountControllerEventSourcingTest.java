@@ -0,0 +1,124 @@
+package pl.nn.currencyexchange.application.rest.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import pl.nn.currencyexchange.application.rest.dto.BatchExchangeMoneyCommand;
+import pl.nn.currencyexchange.application.rest.dto.BatchExchangeMoneyQuery;
+import pl.nn.currencyexchange.domain.enums.Currency;
+import pl.nn.currencyexchange.domain.enums.ExchangeStatus;
+import pl.nn.currencyexchange.domain.service.impl.BalanceProjector;
+import pl.nn.currencyexchange.infrastucture.configuration.properties.ExchangeProperties;
+
+@TestPropertySource(properties = "exchange.event-sourcing.projection-interval=PT1H")
+class AccountControllerEventSourcingTest extends AccountControllerTestSupport {
+
+  private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper().findAndRegisterModules();
+
+  @Autowired
+  private ExchangeProperties exchangeProperties;
+
+  @Autowired
+  private BalanceProjector balanceProjector;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @BeforeEach
+  void setUp() {
+    exchangeProperties.setMode(ExchangeProperties.Mode.EVENT_SOURCED);
+    exchangeProperties.getEventSourcing().setSnapshotInterval(3);
+    stubNbpRates();
+  }
+
+  @AfterEach
+  void tearDown() {
+    exchangeProperties.setMode(ExchangeProperties.Mode.ATOMIC);
+    exchangeProperties.getEventSourcing().setSnapshotInterval(100);
+  }
+
+  @Test
+  void shouldProjectAppendedExchangesIntoBalances() throws Exception {
+    // given
+    var accountId = createAccount();
+    for (int i = 0; i < 5; i++) {
+      mockMvc.perform(post("/account/" + accountId + "/exchange")
+              .contentType(MediaType.APPLICATION_JSON)
+              .content("{\"currency\": \"USD\", \"amount\": 1}"))
+          .andExpect(status().isOk());
+    }
+    var balanceBeforeProjection = getBalance(accountId);
+
+    // when
+    var projected = balanceProjector.project();
+    var projectedAgain = balanceProjector.project();
+
+    // then
+    assertThat(getAmount(balanceBeforeProjection, Currency.PLN)).isEqualByComparingTo("100.00");
+    assertThat(projected).isEqualTo(1);
+    assertThat(projectedAgain).isZero();
+
+    var balance = getBalance(accountId);
+    assertThat(getAmount(balance, Currency.PLN)).isEqualByComparingTo("79.85");
+    assertThat(getAmount(balance, Currency.USD)).isEqualByComparingTo("5.00");
+
+    var snapshot = jdbcTemplate.queryForList(
+        "SELECT currency, amount FROM balance_snapshot WHERE account_id = ? ORDER BY currency",
+        accountId);
+    assertThat(snapshot).extracting(row -> row.get("CURRENCY"))
+        .containsExactly("PLN", "USD");
+    assertThat(snapshot).extracting(row -> (BigDecimal) row.get("AMOUNT"))
+        .usingElementComparator(BigDecimal::compareTo)
+        .containsExactly(new BigDecimal("87.91"), new BigDecimal("3.00"));
+  }
+
+  @Test
+  void shouldVerifyFundsAgainstReplayedLedger() throws Exception {
+    // given
+    var accountId = createAccount();
+    var command = BatchExchangeMoneyCommand.builder()
+        .orders(List.of(
+            order(accountId, Currency.USD, "20.00"),
+            order(accountId, Currency.USD, "10.00"),
+            order(accountId, Currency.USD, "2.00"),
+            order(UUID.randomUUID(), Currency.USD, "1.00")))
+        .build();
+
+    // when
+    var response = mockMvc.perform(post("/account/exchange/batch")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(OBJECT_MAPPER.writeValueAsString(command)))
+        .andExpect(status().isOk())
+        .andReturn()
+        .getResponse();
+    mockMvc.perform(post("/account/" + accountId + "/exchange")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(getFileContent("exchangeMoney__validRequest.json")))
+        .andExpect(status().isNotAcceptable());
+
+    // then
+    var result = OBJECT_MAPPER.readValue(response.getContentAsString(),
+        BatchExchangeMoneyQuery.class);
+    assertThat(result.getResults())
+        .extracting(BatchExchangeMoneyQuery.Result::getStatus)
+        .containsExactly(ExchangeStatus.EXECUTED, ExchangeStatus.NOT_ENOUGH_FUNDS,
+            ExchangeStatus.EXECUTED, ExchangeStatus.ACCOUNT_NOT_FOUND);
+
+    balanceProjector.project();
+    var balance = getBalance(accountId);
+    assertThat(getAmount(balance, Currency.PLN)).isEqualByComparingTo("11.32");
+    assertThat(getAmount(balance, Currency.USD)).isEqualByComparingTo("22.00");
+  }
+}
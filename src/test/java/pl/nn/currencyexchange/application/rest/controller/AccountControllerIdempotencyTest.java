@@ -0,0 +1,201 @@
+package pl.nn.currencyexchange.application.rest.controller;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.okJson;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+import pl.nn.currencyexchange.application.rest.dto.AccountBalanceQuery;
+import pl.nn.currencyexchange.domain.enums.Currency;
+
+class AccountControllerIdempotencyTest extends AccountControllerTestSupport {
+
+  private static final int DUPLICATES = 10;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @Autowired
+  private TransactionTemplate transactionTemplate;
+
+  @BeforeEach
+  void setUp() {
+    stubNbpRates();
+  }
+
+  @Test
+  void shouldReturnStoredResponseForRepeatedExchange() {
+    // given
+    var accountId = createAccount();
+    var idempotencyKey = UUID.randomUUID().toString();
+
+    // when
+    var first = exchangeMoney(accountId, idempotencyKey);
+    var repeated = exchangeMoney(accountId, idempotencyKey);
+    var other = exchangeMoney(accountId, UUID.randomUUID().toString());
+
+    // then
+    assertThat(first.getStatusCode()).isEqualTo(HttpStatus.OK);
+    assertThat(repeated.getStatusCode()).isEqualTo(HttpStatus.OK);
+    assertThat(getAmount(repeated.getBody(), Currency.PLN)).isEqualByComparingTo("59.69");
+    assertThat(getAmount(other.getBody(), Currency.PLN)).isEqualByComparingTo("19.38");
+    assertThat(countTransactions(accountId)).isEqualTo(2);
+  }
+
+  @Test
+  void shouldExecuteConcurrentDuplicatesOnce() throws Exception {
+    // given
+    wireMockServer.stubFor(get(urlPathEqualTo(NBP_RATES_PATH))
+        .willReturn(okJson(getFileContent("nbpTables__c.json"))
+            .withFixedDelay(500)));
+    var accountId = createAccount();
+    var idempotencyKey = UUID.randomUUID().toString();
+
+    // when
+    var start = new CountDownLatch(1);
+    List<Future<ResponseEntity<AccountBalanceQuery>>> responses = new ArrayList<>();
+    try (var executor = Executors.newFixedThreadPool(DUPLICATES)) {
+      for (int i = 0; i < DUPLICATES; i++) {
+        responses.add(executor.submit(() -> {
+          start.await();
+          return exchangeMoney(accountId, idempotencyKey);
+        }));
+      }
+      start.countDown();
+    }
+
+    // then
+    for (Future<ResponseEntity<AccountBalanceQuery>> response : responses) {
+      assertThat(response.get().getStatusCode()).isEqualTo(HttpStatus.OK);
+      assertThat(getAmount(response.get().getBody(), Currency.USD)).isEqualByComparingTo("10");
+    }
+    assertThat(countTransactions(accountId)).isEqualTo(1);
+  }
+
+  @Test
+  void shouldReturnResponseStoredInDatabaseWithoutCreatingAccount() {
+    // given
+    var idempotencyKey = UUID.randomUUID().toString();
+    var storedAccountId = UUID.randomUUID();
+    jdbcTemplate.update(
+        "INSERT INTO idempotency_key (request_key, response, created_at) VALUES (?, ?, ?)",
+        "create:" + idempotencyKey, "\"" + storedAccountId + "\"", OffsetDateTime.now());
+    var accountsBefore = countAccounts();
+
+    // when
+    var accountId = createAccount(restTemplate,
+        jsonRequest(getFileContent(CREATE_ACCOUNT_REQUEST), idempotencyKey));
+
+    // then
+    assertThat(accountId).isEqualTo(storedAccountId);
+    assertThat(countAccounts()).isEqualTo(accountsBefore);
+    wireMockServer.verify(0, getRequestedFor(urlPathEqualTo(NBP_RATES_PATH)));
+  }
+
+  @Test
+  void shouldRejectRepeatedKeyWithDifferentBody() {
+    // given
+    var accountId = createAccount();
+    var idempotencyKey = UUID.randomUUID().toString();
+    exchangeMoney(accountId, idempotencyKey);
+
+    // when
+    var response = restTemplate.postForEntity("/account/" + accountId + "/exchange",
+        jsonRequest(getFileContent("exchangeMoney__tooMuchTargetAmount.json"), idempotencyKey),
+        String.class);
+
+    // then
+    assertThat(response.getStatusCode()).isEqualTo(HttpStatus.UNPROCESSABLE_ENTITY);
+    assertThat(countTransactions(accountId)).isEqualTo(1);
+  }
+
+  /**
+   * Another instance is simulated by claiming the key in a transaction committed while the
+   * request waits for it.
+   */
+  @Test
+  void shouldReturnResponseCommittedByOtherInstance() throws Exception {
+    // given
+    var accountId = createAccount();
+    var firstKey = UUID.randomUUID().toString();
+    var idempotencyKey = UUID.randomUUID().toString();
+    exchangeMoney(accountId, firstKey);
+    var stored = jdbcTemplate.queryForMap(
+        "SELECT request_hash, response FROM idempotency_key WHERE request_key = ?",
+        "exchange:" + accountId + ":" + firstKey);
+
+    // when
+    var claimed = new CountDownLatch(1);
+    ResponseEntity<AccountBalanceQuery> response;
+    try (var executor = Executors.newSingleThreadExecutor()) {
+      var otherInstance = executor.submit(() -> transactionTemplate.executeWithoutResult(status -> {
+        var key = "exchange:" + accountId + ":" + idempotencyKey;
+        jdbcTemplate.update("INSERT INTO idempotency_key (request_key, request_hash, created_at) "
+            + "VALUES (?, ?, ?)", key, stored.get("request_hash"), OffsetDateTime.now());
+        claimed.countDown();
+        sleep(500);
+        jdbcTemplate.update("UPDATE idempotency_key SET response = ? WHERE request_key = ?",
+            stored.get("response"), key);
+      }));
+      claimed.await();
+      response = exchangeMoney(accountId, idempotencyKey);
+      otherInstance.get();
+    }
+
+    // then
+    assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+    assertThat(getAmount(response.getBody(), Currency.PLN)).isEqualByComparingTo("59.69");
+    assertThat(countTransactions(accountId)).isEqualTo(1);
+  }
+
+  @Test
+  void shouldRejectTooLongIdempotencyKey() {
+    // when
+    var response = restTemplate.postForEntity("/account/create",
+        jsonRequest(getFileContent(CREATE_ACCOUNT_REQUEST), "k".repeat(256)), String.class);
+
+    // then
+    assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+  }
+
+  private static void sleep(long millis) {
+    try {
+      Thread.sleep(millis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private Integer countTransactions(UUID accountId) {
+    return jdbcTemplate.queryForObject(
+        "SELECT COUNT(*) FROM exchange_transaction WHERE account_id = ?", Integer.class,
+        accountId);
+  }
+
+  private Integer countAccounts() {
+    return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM account", Integer.class);
+  }
+
+  private ResponseEntity<AccountBalanceQuery> exchangeMoney(UUID accountId,
+                                                            String idempotencyKey) {
+    return restTemplate.postForEntity("/account/" + accountId + "/exchange",
+        jsonRequest(getFileContent("exchangeMoney__validRequest.json"), idempotencyKey),
+        AccountBalanceQuery.class);
+  }
+}
@@ -0,0 +1,96 @@
+package pl.nn.currencyexchange.application.rest.controller;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.okJson;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.options;
+import static org.assertj.core.api.Assertions.assertThat;
+import static pl.nn.currencyexchange.application.rest.controller.AccountControllerTestSupport.CREATE_ACCOUNT_REQUEST;
+import static pl.nn.currencyexchange.application.rest.controller.AccountControllerTestSupport.NBP_RATES_PATH;
+import static pl.nn.currencyexchange.application.rest.controller.AccountControllerTestSupport.createAccount;
+import static pl.nn.currencyexchange.application.rest.controller.AccountControllerTestSupport.getAmount;
+import static pl.nn.currencyexchange.application.rest.controller.AccountControllerTestSupport.getBalance;
+import static pl.nn.currencyexchange.application.rest.controller.AccountControllerTestSupport.getFileContent;
+import static pl.nn.currencyexchange.application.rest.controller.AccountControllerTestSupport.jsonRequest;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpStatus;
+import pl.nn.currencyexchange.CurrencyExchangeApplication;
+import pl.nn.currencyexchange.application.rest.dto.AccountBalanceQuery;
+import pl.nn.currencyexchange.domain.enums.Currency;
+import pl.nn.currencyexchange.domain.service.impl.PollingAccountChangeBus;
+
+/**
+ * Two instances of the service in one JVM, sharing an H2 database and broadcasting balance
+ * changes through it. Polls are triggered by the test.
+ */
+class AccountControllerReplicasTest {
+
+  private static final String BUY_ONE_USD = "{\"currency\": \"USD\", \"amount\": 1}";
+
+  private static WireMockServer wireMockServer;
+  private static ConfigurableApplicationContext first;
+  private static ConfigurableApplicationContext second;
+
+  @BeforeAll
+  static void startReplicas() {
+    wireMockServer = new WireMockServer(options().dynamicPort());
+    wireMockServer.start();
+    wireMockServer.stubFor(get(urlPathEqualTo(NBP_RATES_PATH))
+        .willReturn(okJson(getFileContent("nbpTables__c.json"))));
+    first = startReplica();
+    second = startReplica();
+  }
+
+  @AfterAll
+  static void stopReplicas() {
+    second.close();
+    first.close();
+    wireMockServer.stop();
+  }
+
+  @Test
+  void shouldEvictBalanceCachedByOtherReplicaOnceChangeIsPolled() {
+    // given
+    var accountId = createAccount(client(first),
+        jsonRequest(getFileContent(CREATE_ACCOUNT_REQUEST)));
+    var cachedBalance = getBalance(client(second), accountId);
+
+    // when
+    var exchange = client(first).postForEntity("/account/" + accountId + "/exchange",
+        jsonRequest(BUY_ONE_USD), AccountBalanceQuery.class);
+    var balanceBeforePoll = getBalance(client(second), accountId);
+    second.getBean(PollingAccountChangeBus.class).poll();
+    var balanceAfterPoll = getBalance(client(second), accountId);
+
+    // then
+    assertThat(exchange.getStatusCode()).isEqualTo(HttpStatus.OK);
+    assertThat(getAmount(cachedBalance, Currency.USD)).isZero();
+    assertThat(getAmount(balanceBeforePoll, Currency.USD)).isZero();
+    assertThat(getAmount(balanceAfterPoll, Currency.USD)).isEqualByComparingTo("1.00");
+    assertThat(getAmount(getBalance(client(first), accountId), Currency.USD))
+        .isEqualByComparingTo("1.00");
+  }
+
+  private static ConfigurableApplicationContext startReplica() {
+    return new SpringApplicationBuilder(CurrencyExchangeApplication.class)
+        .profiles("test")
+        .run("--server.port=0",
+            "--spring.datasource.url=jdbc:h2:mem:replicas;LOCK_TIMEOUT=30000",
+            "--feign.nbp.url=" + wireMockServer.baseUrl(),
+            "--exchange.balance-cache.invalidation=DATABASE",
+            "--exchange.balance-cache.poll-interval=PT1H");
+  }
+
+  private static TestRestTemplate client(ConfigurableApplicationContext replica) {
+    var port = replica.getEnvironment().getProperty("local.server.port");
+    return new TestRestTemplate(new RestTemplateBuilder().rootUri("http://localhost:" + port));
+  }
+}
@@ -0,0 +1,100 @@
+package pl.nn.currencyexchange.application.rest.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import jakarta.persistence.EntityManagerFactory;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+/**
+ * Guards the number of JDBC statements issued per endpoint, so that a regression to lazy loading
+ * of the owner or the wallet fails the build.
+ */
+class AccountControllerStatementCountTest extends AccountControllerTestSupport {
+
+  @Autowired
+  private EntityManagerFactory entityManagerFactory;
+
+  private Statistics statistics;
+
+  @BeforeEach
+  void setUp() {
+    statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    stubNbpRates();
+  }
+
+  @Test
+  void shouldReadAccountBalanceWithSingleStatementAndNoEntities() throws Exception {
+    // given
+    var accountId = createAccount();
+
+    // when
+    var statements = countStatements(get("/account/" + accountId + "/balance"));
+
+    // then
+    assertThat(statements).isEqualTo(1);
+    assertThat(statistics.getEntityLoadCount()).isZero();
+  }
+
+  /**
+   * Locking the balances, the credit upsert and the ledger entry are plain JDBC statements, not
+   * counted by Hibernate.
+   */
+  @Test
+  void shouldExchangeMoneyWithDebitAndSingleLoadStatement() throws Exception {
+    // given
+    var accountId = createAccount();
+    mockMvc.perform(exchangeMoneyRequest(accountId))
+        .andExpect(status().isOk());
+
+    // when
+    var statements = countStatements(exchangeMoneyRequest(accountId));
+
+    // then
+    assertThat(statements).isEqualTo(2);
+  }
+
+  @Test
+  void shouldCreateAccountsInBulkWithBatchedInserts() throws Exception {
+    // given
+    var ndjson = IntStream.range(0, 120)
+        .mapToObj(i -> "{\"firstName\": \"Jan\", \"lastName\": \"Kowalski\", \"balance\": 100}")
+        .collect(Collectors.joining("\n"));
+    var request = post("/account/create/bulk")
+        .contentType(MediaType.APPLICATION_NDJSON)
+        .content(ndjson);
+
+    // when
+    statistics.clear();
+    mockMvc.perform(request)
+        .andExpect(status().isCreated());
+
+    // then
+    assertThat(statistics.getEntityInsertCount()).isEqualTo(360);
+    assertThat(statistics.getPrepareStatementCount()).isEqualTo(9);
+  }
+
+  private long countStatements(RequestBuilder request) throws Exception {
+    statistics.clear();
+    mockMvc.perform(request)
+        .andExpect(status().isOk());
+    return statistics.getPrepareStatementCount();
+  }
+
+  private RequestBuilder exchangeMoneyRequest(UUID accountId) {
+    return post("/account/" + accountId + "/exchange")
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(getFileContent("exchangeMoney__validRequest.json"));
+  }
+}
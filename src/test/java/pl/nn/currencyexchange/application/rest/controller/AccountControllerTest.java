@@ -25,19 +25,26 @@ import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMock
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
 import pl.nn.currencyexchange.application.rest.dto.AccountBalanceQuery;
+import pl.nn.currencyexchange.application.rest.dto.BulkCreateAccountCommand;
 import pl.nn.currencyexchange.configuration.WireMockConfig;
 import pl.nn.currencyexchange.domain.enums.Currency;
 
+/**
+ * Starts with a new context, as exchanges with an unknown rate expect exchange rates not to be
+ * cached yet.
+ */
 @ExtendWith(SpringExtension.class)
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
 @AutoConfigureMockMvc
 @ActiveProfiles("test")
 @ContextConfiguration(classes = {WireMockConfig.class})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_CLASS)
 class AccountControllerTest {
 
   private static final String DATA_PATH = "/json/";
@@ -92,6 +99,69 @@ class AccountControllerTest {
         .andExpect(status().isBadRequest());
   }
 
+  @Test
+  void shouldSuccessfullyCreateAccountsInBulk() throws Exception {
+    // when
+    var request = post("/account/create/bulk")
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(getFileContent("createAccounts__validRequest.json"));
+
+    // then
+    var response = mockMvc.perform(request)
+        .andExpect(status().isCreated())
+        .andReturn()
+        .getResponse();
+    var accountIds = OBJECT_MAPPER.readValue(response.getContentAsString(), UUID[].class);
+    assertThat(accountIds).hasSize(2);
+    assertThat(getAccountBalance(accountIds[1]).getOwner().getFirstName()).isEqualTo("Anna");
+  }
+
+  @Test
+  void shouldSuccessfullyCreateAccountsFromNdjsonStream() throws Exception {
+    // when
+    var request = post("/account/create/bulk")
+        .contentType(MediaType.APPLICATION_NDJSON)
+        .content(getFileContent("createAccounts__validRequest.ndjson"));
+
+    // then
+    var response = mockMvc.perform(request)
+        .andExpect(status().isCreated())
+        .andReturn()
+        .getResponse();
+    var accountIds = OBJECT_MAPPER.readValue(response.getContentAsString(), UUID[].class);
+    assertThat(accountIds).hasSize(2);
+    assertThat(getAccountBalance(accountIds[0]).getOwner().getFirstName()).isEqualTo("Dawid");
+  }
+
+  @Test
+  void shouldHandleExceptionForInvalidLineDuringBulkCreateAccounts() throws Exception {
+    // when
+    var request = post("/account/create/bulk")
+        .contentType(MediaType.APPLICATION_NDJSON)
+        .content(getFileContent("createAccounts__invalidLine.ndjson"));
+
+    // then
+    mockMvc.perform(request)
+        .andExpect(status().isBadRequest());
+  }
+
+  @Test
+  void shouldRejectNdjsonStreamAboveAccountLimit() throws Exception {
+    // given
+    var line = getFileContent("createAccounts__validRequest.ndjson").lines().findFirst()
+        .orElseThrow();
+    var content = (line + "\n").repeat(BulkCreateAccountCommand.MAX_ACCOUNTS + 1);
+
+    // when
+    var request = post("/account/create/bulk")
+        .contentType(MediaType.APPLICATION_NDJSON)
+        .content(content);
+
+    // then
+    mockMvc.perform(request)
+        .andExpect(status().isBadRequest());
+  }
+
   @Test
   void shouldSuccessfullyGetAccountData() throws Exception {
     // given
@@ -159,11 +229,33 @@ class AccountControllerTest {
         .andExpect(status().isNotFound());
   }
 
+  @Test
+  void shouldCountHandledExceptionsByType() throws Exception {
+    // given
+    mockMvc.perform(get("/account/" + UUID.randomUUID() + "/balance"))
+        .andExpect(status().isNotFound());
+
+    // when
+    var response = mockMvc.perform(get("/actuator/metrics/api.errors")
+            .param("tag", "exception:AccountNotExistsException")
+            .param("tag", "status:404"))
+        .andExpect(status().isOk())
+        .andReturn()
+        .getResponse();
+
+    // then
+    var count = OBJECT_MAPPER.readTree(response.getContentAsString())
+        .at("/measurements/0/value").asDouble();
+    assertThat(count).isGreaterThanOrEqualTo(1);
+    mockMvc.perform(get("/actuator/metrics/exchange.stage").param("tag", "stage:rates"))
+        .andExpect(status().isOk());
+  }
+
   @Test
   void shouldHandleExceptionForUnknownCurrency() throws Exception {
     // given
     wireMockServer.stubFor(com.github.tomakehurst.wiremock.client.WireMock.get(
-            urlEqualTo("/exchangerates/rates/C/UNKNOWN"))
+            urlEqualTo("/exchangerates/tables/C"))
         .willReturn(aResponse()
             .withStatus(404)));
 
@@ -190,6 +282,14 @@ class AccountControllerTest {
         .andExpect(status().isNotFound());
   }
 
+  private AccountBalanceQuery getAccountBalance(UUID accountId) throws Exception {
+    var response = mockMvc.perform(get("/account/" + accountId + "/balance"))
+        .andExpect(status().isOk())
+        .andReturn()
+        .getResponse();
+    return OBJECT_MAPPER.readValue(response.getContentAsString(), AccountBalanceQuery.class);
+  }
+
   private String getFileContent(String fileName) throws IOException {
     try (InputStream inputStream
              = new ClassPathResource(DATA_PATH + fileName).getInputStream()) {
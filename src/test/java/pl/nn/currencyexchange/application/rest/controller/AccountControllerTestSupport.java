@@ -0,0 +1,144 @@
+package pl.nn.currencyexchange.application.rest.controller;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.okJson;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import pl.nn.currencyexchange.application.rest.dto.AccountBalanceQuery;
+import pl.nn.currencyexchange.application.rest.dto.BatchExchangeMoneyCommand;
+import pl.nn.currencyexchange.configuration.WireMockConfig;
+import pl.nn.currencyexchange.domain.enums.Currency;
+
+/**
+ * Context and requests shared by the account controller integration tests. Subclasses add
+ * properties with {@code @TestPropertySource}, so that tests with the same properties run in one
+ * cached context. Stubs of the NBP API are reset after each test.
+ */
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@ContextConfiguration(classes = {WireMockConfig.class})
+abstract class AccountControllerTestSupport {
+
+  static final String NBP_RATES_PATH = "/exchangerates/tables/C";
+  static final String CREATE_ACCOUNT_REQUEST = "createAccount__validRequest.json";
+
+  private static final String DATA_PATH = "/json/";
+
+  @Autowired
+  protected TestRestTemplate restTemplate;
+
+  @Autowired
+  protected MockMvc mockMvc;
+
+  @Autowired
+  protected WireMockServer wireMockServer;
+
+  /**
+   * Not stubbed before each test, as a new context requests the rates once it starts and would
+   * cache them before tests expecting an empty cache.
+   */
+  protected void stubNbpRates() {
+    wireMockServer.stubFor(get(urlPathEqualTo(NBP_RATES_PATH))
+        .willReturn(okJson(getFileContent("nbpTables__c.json"))));
+  }
+
+  @AfterEach
+  void resetNbpRates() {
+    wireMockServer.resetAll();
+  }
+
+  protected UUID createAccount() {
+    return createAccount(restTemplate, jsonRequest(getFileContent(CREATE_ACCOUNT_REQUEST)));
+  }
+
+  protected AccountBalanceQuery getBalance(UUID accountId) {
+    return getBalance(restTemplate, accountId);
+  }
+
+  /**
+   * @param request body of the request or an {@link HttpEntity} with its headers
+   */
+  static UUID createAccount(TestRestTemplate client, Object request) {
+    var response = client.postForEntity("/account/create", request, UUID.class);
+    assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+    return response.getBody();
+  }
+
+  static AccountBalanceQuery getBalance(TestRestTemplate client, UUID accountId) {
+    var response = client.getForEntity("/account/" + accountId + "/balance",
+        AccountBalanceQuery.class);
+    assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+    return response.getBody();
+  }
+
+  /**
+   * @return amount held in the currency, zero when the wallet does not hold it
+   */
+  static BigDecimal getAmount(AccountBalanceQuery balance, Currency currency) {
+    return balance.getWallet().stream()
+        .filter(currencyBalance -> currencyBalance.getCurrency().equals(currency))
+        .map(AccountBalanceQuery.CurrencyBalance::getAmount)
+        .findFirst()
+        .orElse(BigDecimal.ZERO);
+  }
+
+  static BatchExchangeMoneyCommand.Order order(UUID accountId, Currency currency,
+                                               String amount) {
+    return BatchExchangeMoneyCommand.Order.builder()
+        .accountId(accountId)
+        .currency(currency)
+        .amount(new BigDecimal(amount))
+        .build();
+  }
+
+  static HttpEntity<String> jsonRequest(String body) {
+    return jsonRequest(body, null);
+  }
+
+  /**
+   * @param idempotencyKey sent in {@link AccountController#IDEMPOTENCY_KEY_HEADER} unless
+   *                       {@code null}
+   */
+  static HttpEntity<String> jsonRequest(String body, String idempotencyKey) {
+    var headers = new HttpHeaders();
+    headers.setContentType(MediaType.APPLICATION_JSON);
+    if (idempotencyKey != null) {
+      headers.set(AccountController.IDEMPOTENCY_KEY_HEADER, idempotencyKey);
+    }
+    return new HttpEntity<>(body, headers);
+  }
+
+  static String getFileContent(String fileName) {
+    try (InputStream inputStream
+             = new ClassPathResource(DATA_PATH + fileName).getInputStream()) {
+      return IOUtils.toString(inputStream, StandardCharsets.UTF_8);
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
@@ -0,0 +1,146 @@
+package pl.nn.currencyexchange.application.rest.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import pl.nn.currencyexchange.application.rest.dto.AccountTransactionsQuery;
+import pl.nn.currencyexchange.application.rest.dto.BatchExchangeMoneyCommand;
+import pl.nn.currencyexchange.domain.enums.Currency;
+
+class AccountControllerTransactionsTest extends AccountControllerTestSupport {
+
+  private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper().findAndRegisterModules();
+
+  @BeforeEach
+  void setUp() {
+    stubNbpRates();
+  }
+
+  @Test
+  void shouldRecordExecutedExchangesAndPageThemFromNewest() throws Exception {
+    // given
+    var accountId = createAccount();
+    mockMvc.perform(post("/account/" + accountId + "/exchange")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(getFileContent("exchangeMoney__validRequest.json")))
+        .andExpect(status().isOk());
+    var command = BatchExchangeMoneyCommand.builder()
+        .orders(List.of(
+            order(accountId, Currency.PLN, "20.00"),
+            order(accountId, Currency.USD, "1000.00"),
+            order(accountId, Currency.USD, "5.00")))
+        .build();
+    mockMvc.perform(post("/account/exchange/batch")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(OBJECT_MAPPER.writeValueAsString(command)))
+        .andExpect(status().isOk());
+
+    // when
+    var firstPage = getTransactions(accountId, "?size=2");
+    var secondPage = getTransactions(accountId, "?size=2&cursor=" + firstPage.getNextCursor());
+
+    // then
+    assertThat(firstPage.getTransactions())
+        .extracting(AccountTransactionsQuery.Transaction::getTargetAmount)
+        .usingElementComparator(BigDecimal::compareTo)
+        .containsExactly(new BigDecimal("5.00"), new BigDecimal("20.00"));
+    assertThat(firstPage.getNextCursor()).isNotNull();
+    assertThat(secondPage.getTransactions()).singleElement().satisfies(transaction -> {
+      assertThat(transaction.getSourceCurrency()).isEqualTo(Currency.PLN);
+      assertThat(transaction.getSourceAmount()).isEqualByComparingTo("40.31");
+      assertThat(transaction.getTargetCurrency()).isEqualTo(Currency.USD);
+      assertThat(transaction.getTargetAmount()).isEqualByComparingTo("10.00");
+      assertThat(transaction.getPrice()).isEqualByComparingTo("4.0311");
+      assertThat(transaction.getRate()).isEqualByComparingTo("4.0311");
+      assertThat(transaction.getRateEffectiveDate()).isEqualTo(LocalDate.of(2024, 11, 4));
+      assertThat(transaction.getExecutedAt()).isNotNull();
+    });
+    assertThat(secondPage.getNextCursor()).isNull();
+  }
+
+  @Test
+  void shouldRecordRateWithSixDecimalPlaces() throws Exception {
+    // given
+    var accountId = createAccount();
+
+    // when
+    mockMvc.perform(post("/account/" + accountId + "/exchange")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("{\"currency\": \"HUF\", \"amount\": 100}"))
+        .andExpect(status().isOk());
+
+    // then
+    assertThat(getTransactions(accountId, "").getTransactions()).singleElement()
+        .satisfies(transaction -> {
+          assertThat(transaction.getRate()).isEqualByComparingTo("0.010751");
+          assertThat(transaction.getSourceAmount()).isEqualByComparingTo("1.08");
+        });
+  }
+
+  @Test
+  void shouldSpendWholeBalanceEqualToRoundedSourceAmount() throws Exception {
+    // given
+    var accountId = createAccount(restTemplate, jsonRequest(
+        "{\"firstName\": \"Jan\", \"lastName\": \"Kowalski\", \"balance\": 40.31}"));
+
+    // when
+    mockMvc.perform(post("/account/" + accountId + "/exchange")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(getFileContent("exchangeMoney__validRequest.json")))
+        .andExpect(status().isOk());
+
+    // then
+    var balance = getBalance(accountId);
+    assertThat(getAmount(balance, Currency.PLN)).isEqualByComparingTo("0.00");
+    assertThat(getAmount(balance, Currency.USD)).isEqualByComparingTo("10.00");
+    assertThat(getTransactions(accountId, "").getTransactions()).singleElement()
+        .satisfies(transaction ->
+            assertThat(transaction.getSourceAmount()).isEqualByComparingTo("40.31"));
+  }
+
+  @Test
+  void shouldReturnEmptyHistoryForAccountWithoutExchanges() throws Exception {
+    // given
+    var accountId = createAccount();
+
+    // when
+    var result = getTransactions(accountId, "");
+
+    // then
+    assertThat(result.getTransactions()).isEmpty();
+    assertThat(result.getNextCursor()).isNull();
+  }
+
+  @Test
+  void shouldReturnNotFoundForHistoryOfNonExistingAccount() throws Exception {
+    // when + then
+    mockMvc.perform(get("/account/" + UUID.randomUUID() + "/transactions"))
+        .andExpect(status().isNotFound());
+  }
+
+  @Test
+  void shouldRejectPageSizeAboveLimit() throws Exception {
+    // when + then
+    mockMvc.perform(get("/account/" + UUID.randomUUID() + "/transactions?size=501"))
+        .andExpect(status().isBadRequest());
+  }
+
+  private AccountTransactionsQuery getTransactions(UUID accountId, String query)
+      throws Exception {
+    var response = mockMvc.perform(get("/account/" + accountId + "/transactions" + query))
+        .andExpect(status().isOk())
+        .andReturn()
+        .getResponse();
+    return OBJECT_MAPPER.readValue(response.getContentAsString(), AccountTransactionsQuery.class);
+  }
+}
@@ -0,0 +1,197 @@
+package pl.nn.currencyexchange.application.rest.controller;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.okJson;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.tomakehurst.wiremock.WireMockServer;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingStream;
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import pl.nn.currencyexchange.configuration.WireMockConfig;
+
+/**
+ * Thousands of exchanges waiting for a slow NBP response must neither exhaust request handling
+ * nor pin virtual threads in the application call path. Each exchange is made on its own
+ * account, so that once the response arrives they do not wait for each other's row locks.
+ */
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+    "spring.threads.virtual.enabled=true",
+    "spring.cloud.openfeign.client.config.nbp-client.read-timeout=60000",
+    "spring.jpa.properties.hibernate.generate_statistics=false"})
+@ActiveProfiles("test")
+@ContextConfiguration(classes = {WireMockConfig.class})
+@DirtiesContext
+class AccountControllerVirtualThreadsTest {
+
+  private static final String DATA_PATH = "/json/";
+  private static final String NBP_RATES_PATH = "/exchangerates/tables/C";
+  private static final int BLOCKED_EXCHANGES = 2000;
+  private static final int NBP_DELAY_MILLIS = 15_000;
+
+  @LocalServerPort
+  private int port;
+
+  @Autowired
+  private WireMockServer wireMockServer;
+
+  @Autowired
+  private MeterRegistry meterRegistry;
+
+  @Autowired
+  private ObjectMapper objectMapper;
+
+  private final HttpClient httpClient = HttpClient.newBuilder()
+      .executor(Executors.newVirtualThreadPerTaskExecutor())
+      .build();
+
+  @AfterEach
+  void tearDown() {
+    wireMockServer.resetAll();
+  }
+
+  @Test
+  void shouldServeRequestsWhileThousandsOfExchangesWaitForSlowNbp() throws Exception {
+    // given
+    var accountIds = createAccounts();
+    wireMockServer.resetRequests();
+    wireMockServer.stubFor(get(urlPathEqualTo(NBP_RATES_PATH))
+        .willReturn(okJson(getFileContent("nbpTables__c.json"))
+            .withFixedDelay(NBP_DELAY_MILLIS)));
+    var coalescedBefore = coalescedRequests();
+    var pinnedInApplication = new ArrayList<RecordedEvent>();
+
+    // when
+    HttpResponse<String> balanceResponse;
+    long balanceMillis;
+    long pendingExchanges;
+    var statuses = new ArrayList<Integer>();
+    try (var pinning = new RecordingStream();
+         var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      pinning.enable("jdk.VirtualThreadPinned").withStackTrace();
+      pinning.onEvent("jdk.VirtualThreadPinned", event -> {
+        if (isApplicationFrameOnStack(event)) {
+          pinnedInApplication.add(event);
+        }
+      });
+      pinning.startAsync();
+
+      var exchanges = new ArrayList<Future<HttpResponse<String>>>();
+      for (int i = 0; i < BLOCKED_EXCHANGES; i++) {
+        var accountId = accountIds.get(i);
+        exchanges.add(executor.submit(() -> send(exchangeRequest(accountId))));
+      }
+      awaitBlockedExchanges(coalescedBefore + BLOCKED_EXCHANGES - 1);
+
+      var started = System.nanoTime();
+      balanceResponse = send(HttpRequest.newBuilder(uri("/account/" + accountIds.get(0)
+          + "/balance")).build());
+      balanceMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+      pendingExchanges = exchanges.stream().filter(exchange -> !exchange.isDone()).count();
+
+      for (var exchange : exchanges) {
+        statuses.add(exchange.get(NBP_DELAY_MILLIS * 4L, TimeUnit.MILLISECONDS).statusCode());
+      }
+    }
+
+    // then
+    assertThat(coalescedRequests() - coalescedBefore).isEqualTo(BLOCKED_EXCHANGES - 1);
+    assertThat(balanceResponse.statusCode()).isEqualTo(200);
+    assertThat(balanceMillis).isLessThan(NBP_DELAY_MILLIS / 2);
+    assertThat(pendingExchanges).isEqualTo(BLOCKED_EXCHANGES);
+    assertThat(statuses).hasSize(BLOCKED_EXCHANGES).containsOnly(200);
+    wireMockServer.verify(1, getRequestedFor(urlPathEqualTo(NBP_RATES_PATH)));
+    assertThat(pinnedInApplication).isEmpty();
+  }
+
+  private void awaitBlockedExchanges(double coalesced) throws InterruptedException {
+    var deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(NBP_DELAY_MILLIS);
+    while (coalescedRequests() < coalesced && System.nanoTime() < deadline) {
+      Thread.sleep(10);
+    }
+  }
+
+  private static boolean isApplicationFrameOnStack(RecordedEvent event) {
+    return event.getStackTrace() != null && event.getStackTrace().getFrames().stream()
+        .anyMatch(frame -> frame.getMethod().getType().getName()
+            .startsWith("pl.nn.currencyexchange"));
+  }
+
+  private double coalescedRequests() {
+    return meterRegistry.get("exchange.rates.requests").tag("outcome", "coalesced")
+        .counter()
+        .count();
+  }
+
+  private List<UUID> createAccounts() throws Exception {
+    var accounts = IntStream.range(0, BLOCKED_EXCHANGES)
+        .mapToObj(i -> "{\"firstName\": \"Jan\", \"lastName\": \"Kowalski\", "
+            + "\"balance\": 10000.00}")
+        .collect(Collectors.joining("\n"));
+    var response = send(HttpRequest.newBuilder(uri("/account/create/bulk"))
+        .header("Content-Type", MediaType.APPLICATION_NDJSON_VALUE)
+        .POST(HttpRequest.BodyPublishers.ofString(accounts))
+        .build());
+    return objectMapper.readValue(response.body(), new TypeReference<>() {
+    });
+  }
+
+  private HttpRequest exchangeRequest(UUID accountId) throws IOException {
+    return HttpRequest.newBuilder(uri("/account/" + accountId + "/exchange"))
+        .header("Content-Type", "application/json")
+        .timeout(Duration.ofMillis(NBP_DELAY_MILLIS * 4L))
+        .POST(HttpRequest.BodyPublishers.ofString(
+            getFileContent("exchangeMoney__validRequest.json")))
+        .build();
+  }
+
+  private HttpResponse<String> send(HttpRequest request) throws IOException,
+      InterruptedException {
+    return httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+  }
+
+  private URI uri(String path) {
+    return URI.create("http://localhost:" + port + path);
+  }
+
+  private String getFileContent(String fileName) throws IOException {
+    try (InputStream inputStream
+             = new ClassPathResource(DATA_PATH + fileName).getInputStream()) {
+      return IOUtils.toString(inputStream, StandardCharsets.UTF_8);
+    }
+  }
+}
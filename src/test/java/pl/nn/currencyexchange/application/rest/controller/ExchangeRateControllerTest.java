@@ -0,0 +1,106 @@
+package pl.nn.currencyexchange.application.rest.controller;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.okJson;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.tomakehurst.wiremock.WireMockServer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import pl.nn.currencyexchange.application.rest.dto.ExchangeRateQuery;
+import pl.nn.currencyexchange.configuration.WireMockConfig;
+import pl.nn.currencyexchange.domain.enums.Currency;
+import pl.nn.currencyexchange.domain.service.ExchangeRateService;
+
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@ContextConfiguration(classes = {WireMockConfig.class})
+@DirtiesContext
+class ExchangeRateControllerTest {
+
+  private static final String DATA_PATH = "/json/";
+
+  private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper().findAndRegisterModules();
+
+  @Autowired
+  private MockMvc mockMvc;
+
+  @Autowired
+  private WireMockServer wireMockServer;
+
+  @Autowired
+  private ExchangeRateService exchangeRateService;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    wireMockServer.stubFor(com.github.tomakehurst.wiremock.client.WireMock.get(
+            urlPathEqualTo("/exchangerates/tables/C"))
+        .willReturn(okJson(getFileContent("nbpTables__c.json"))));
+    exchangeRateService.getExchangeRates();
+  }
+
+  @AfterEach
+  void tearDown() {
+    wireMockServer.resetAll();
+  }
+
+  @Test
+  void shouldReturnStoredRateInEffectOnGivenDate() throws Exception {
+    // when
+    var response = mockMvc.perform(get("/exchange-rate/EUR").param("date", "2024-11-06"))
+        .andExpect(status().isOk())
+        .andReturn()
+        .getResponse();
+
+    // then
+    var rate = OBJECT_MAPPER.readValue(response.getContentAsString(), ExchangeRateQuery.class);
+    assertThat(rate.getCurrency()).isEqualTo(Currency.EUR);
+    assertThat(rate.getEffectiveDate()).isEqualTo(LocalDate.of(2024, 11, 4));
+    assertThat(rate.getBid()).isEqualByComparingTo("4.3110");
+    assertThat(rate.getAsk()).isEqualByComparingTo("4.3980");
+  }
+
+  @Test
+  void shouldHandleExceptionForDateBeforeStoredRates() throws Exception {
+    // when
+    // then
+    mockMvc.perform(get("/exchange-rate/USD").param("date", "2024-11-01"))
+        .andExpect(status().isNotFound());
+  }
+
+  @Test
+  void shouldHandleExceptionForBaseCurrency() throws Exception {
+    // when
+    // then
+    mockMvc.perform(get("/exchange-rate/PLN"))
+        .andExpect(status().isNotFound());
+  }
+
+  private String getFileContent(String fileName) throws IOException {
+    try (InputStream inputStream
+             = new ClassPathResource(DATA_PATH + fileName).getInputStream()) {
+      return IOUtils.toString(inputStream, StandardCharsets.UTF_8);
+    }
+  }
+}
@@ -9,8 +9,19 @@ import org.springframework.test.context.ActiveProfiles;
 @ActiveProfiles("test")
 public class WireMockConfig {
 
-  @Bean(initMethod = "start", destroyMethod = "stop")
+  /**
+   * Shared by all cached test contexts, as each of them calls NBP at the same port. It is not
+   * stopped with a context and stubs are reset by the tests.
+   */
+  private static final WireMockServer WIRE_MOCK_SERVER = new WireMockServer(8081);
+
+  @Bean(destroyMethod = "")
   public WireMockServer wireMockServer() {
-    return new WireMockServer(8081);
+    synchronized (WIRE_MOCK_SERVER) {
+      if (!WIRE_MOCK_SERVER.isRunning()) {
+        WIRE_MOCK_SERVER.start();
+      }
+    }
+    return WIRE_MOCK_SERVER;
   }
-}
\ No newline at end of file
+}
@@ -0,0 +1,148 @@
+package pl.nn.currencyexchange.domain.model;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.EnumMap;
+import java.util.Map;
+import net.jqwik.api.Assume;
+import net.jqwik.api.Example;
+import net.jqwik.api.ForAll;
+import net.jqwik.api.Property;
+import net.jqwik.api.constraints.IntRange;
+import net.jqwik.api.constraints.LongRange;
+import pl.nn.currencyexchange.domain.enums.Currency;
+
+/**
+ * Compares the {@code long} arithmetic of {@link Money} with the {@link BigDecimal} calculation
+ * it replaced, for amounts accepted by the API and rates of any magnitude quoted by NBP.
+ */
+class MoneyTest {
+
+  private static final LocalDate EFFECTIVE_DATE = LocalDate.of(2024, 11, 4);
+
+  @Property
+  void shouldConvertAsBigDecimalDivision(
+      @ForAll @LongRange(min = 100, max = 999_999_999_999L) long cents,
+      @ForAll Currency source, @ForAll Currency target,
+      @ForAll @LongRange(min = 1, max = 100_000_000_000L) long bid,
+      @ForAll @LongRange(min = 1, max = 100_000_000_000L) long ask,
+      @ForAll @IntRange(min = 4, max = 6) int rateScale) {
+    Assume.that(source != target);
+
+    // given
+    var bids = new EnumMap<Currency, BigDecimal>(Currency.class);
+    var asks = new EnumMap<Currency, BigDecimal>(Currency.class);
+    if (source != Currency.PLN) {
+      bids.put(source, BigDecimal.valueOf(bid, rateScale));
+    }
+    if (target != Currency.PLN) {
+      asks.put(target, BigDecimal.valueOf(ask, rateScale));
+    }
+    var matrix = ExchangeRateMatrix.of(EFFECTIVE_DATE, bids, asks);
+    var amount = BigDecimal.valueOf(cents, 2);
+    var expected = amount.multiply(asks.getOrDefault(target, BigDecimal.ONE))
+        .divide(bids.getOrDefault(source, BigDecimal.ONE), Money.SCALE, RoundingMode.HALF_UP);
+
+    // when
+    Throwable thrown = catchThrowable(() -> matrix.convert(source, Money.of(amount, target)));
+
+    // then
+    if (expected.unscaledValue().bitLength() >= Long.SIZE) {
+      assertThat(thrown).isInstanceOf(ArithmeticException.class);
+      return;
+    }
+    var result = matrix.convert(source, Money.of(amount, target));
+    assertThat(thrown).isNull();
+    assertThat(result.toBigDecimal()).isEqualTo(expected);
+    assertThat(result.currency()).isEqualTo(source);
+  }
+
+  /**
+   * Selling a foreign currency divided the amount by its bid before prices were precomputed.
+   */
+  @Property
+  void shouldSellIntoPlnAsDivisionByBid(
+      @ForAll @LongRange(min = 1, max = 999_999_999_999L) long cents,
+      @ForAll Currency source,
+      @ForAll @LongRange(min = 1, max = 100_000_000L) long bid,
+      @ForAll @IntRange(min = 4, max = 6) int rateScale) {
+    Assume.that(source != Currency.PLN);
+
+    // given
+    var bidRate = BigDecimal.valueOf(bid, rateScale);
+    var bids = new EnumMap<Currency, BigDecimal>(Currency.class);
+    bids.put(source, bidRate);
+    var matrix = ExchangeRateMatrix.of(EFFECTIVE_DATE, bids, new EnumMap<>(Currency.class));
+    var amount = BigDecimal.valueOf(cents, 2);
+    var expected = amount.divide(bidRate, Money.SCALE, RoundingMode.HALF_UP);
+    Assume.that(expected.unscaledValue().bitLength() < Long.SIZE);
+
+    // when
+    var result = matrix.convert(source, Currency.PLN, amount);
+
+    // then
+    assertThat(result).isEqualTo(expected);
+  }
+
+  @Example
+  void shouldSellLargestAcceptedAmountAsDivisionByBid() {
+    // given
+    var bid = new BigDecimal("3.9811");
+    var matrix = ExchangeRateMatrix.of(EFFECTIVE_DATE, Map.of(Currency.USD, bid),
+        Map.of());
+    var amount = new BigDecimal("9999999999.99");
+
+    // when
+    var result = matrix.convert(Currency.USD, Currency.PLN, amount);
+
+    // then
+    assertThat(result).isEqualTo(amount.divide(bid, Money.SCALE, RoundingMode.HALF_UP));
+  }
+
+  @Property
+  void shouldAddAndCompareAsBigDecimal(
+      @ForAll @LongRange(min = -100_000_000_000_000L, max = 100_000_000_000_000L) long first,
+      @ForAll @LongRange(min = -100_000_000_000_000L, max = 100_000_000_000_000L) long second,
+      @ForAll @IntRange(min = 0, max = 4) int scale) {
+    // given
+    var firstAmount = BigDecimal.valueOf(first, scale);
+    var secondAmount = BigDecimal.valueOf(second, scale);
+    var firstMoney = Money.of(firstAmount, Currency.USD);
+    var secondMoney = Money.of(secondAmount, Currency.USD);
+
+    // when
+    var sum = firstMoney.plus(secondMoney);
+    var difference = firstMoney.minus(secondMoney);
+    var lessThan = firstMoney.isLessThan(secondMoney);
+
+    // then
+    assertThat(firstMoney.toBigDecimal()).isEqualByComparingTo(firstAmount);
+    assertThat(sum.toBigDecimal()).isEqualByComparingTo(firstAmount.add(secondAmount));
+    assertThat(difference.toBigDecimal())
+        .isEqualByComparingTo(firstAmount.subtract(secondAmount));
+    assertThat(lessThan).isEqualTo(firstAmount.compareTo(secondAmount) < 0);
+  }
+
+  @Example
+  void shouldRejectAmountWithMoreDecimalPlacesThanScale() {
+    // when
+    Throwable thrown = catchThrowable(() -> Money.of(new BigDecimal("1.00001"), Currency.PLN));
+
+    // then
+    assertThat(thrown).isInstanceOf(ArithmeticException.class);
+  }
+
+  @Example
+  void shouldRejectAmountsOfDifferentCurrencies() {
+    // when
+    Throwable thrown = catchThrowable(() ->
+        Money.zero(Currency.PLN).plus(Money.zero(Currency.USD)));
+
+    // then
+    assertThat(thrown).isInstanceOf(IllegalArgumentException.class);
+  }
+}
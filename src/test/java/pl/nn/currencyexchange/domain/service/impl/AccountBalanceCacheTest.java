@@ -0,0 +1,58 @@
+package pl.nn.currencyexchange.domain.service.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.ArrayList;
+import java.util.Optional;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import pl.nn.currencyexchange.application.rest.dto.AccountBalanceQuery;
+import pl.nn.currencyexchange.domain.service.AccountChangeBus;
+import pl.nn.currencyexchange.infrastucture.configuration.properties.ExchangeProperties;
+
+@ExtendWith(MockitoExtension.class)
+class AccountBalanceCacheTest {
+
+  private static final UUID ACCOUNT_ID = UUID.randomUUID();
+
+  @Mock
+  private AccountChangeBus accountChangeBus;
+
+  private AccountBalanceCache balanceCache;
+
+  @BeforeEach
+  public void init() {
+    balanceCache = new AccountBalanceCache(new ExchangeProperties(), new SimpleMeterRegistry(),
+        accountChangeBus);
+  }
+
+  @Test
+  void shouldInvalidateBalanceWhenPublishingChangeFails() {
+    // given
+    var loads = new ArrayList<UUID>();
+    balanceCache.get(ACCOUNT_ID, accountId -> {
+      loads.add(accountId);
+      return Optional.of(new AccountBalanceQuery());
+    });
+    doThrow(new DataAccessResourceFailureException("Database unavailable"))
+        .when(accountChangeBus).publish(any());
+
+    // when
+    balanceCache.invalidate(ACCOUNT_ID);
+
+    // then
+    balanceCache.get(ACCOUNT_ID, accountId -> {
+      loads.add(accountId);
+      return Optional.of(new AccountBalanceQuery());
+    });
+    assertThat(loads).hasSize(2);
+  }
+}
@@ -4,35 +4,52 @@ import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
 import static org.assertj.core.api.AssertionsForClassTypes.catchThrowable;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import pl.nn.currencyexchange.application.rest.dto.AccountBalanceQuery;
+import pl.nn.currencyexchange.application.rest.dto.AccountTransactionsQuery;
+import pl.nn.currencyexchange.application.rest.dto.BatchExchangeMoneyCommand;
 import pl.nn.currencyexchange.application.rest.dto.CreateAccountCommand;
 import pl.nn.currencyexchange.application.rest.dto.ExchangeMoneyCommand;
 import pl.nn.currencyexchange.domain.entity.Account;
 import pl.nn.currencyexchange.domain.entity.CurrencyBalance;
+import pl.nn.currencyexchange.domain.entity.ExchangeTransaction;
 import pl.nn.currencyexchange.domain.entity.Owner;
 import pl.nn.currencyexchange.domain.enums.Currency;
+import pl.nn.currencyexchange.domain.enums.ExchangeStatus;
 import pl.nn.currencyexchange.domain.exception.AccountNotExistsException;
 import pl.nn.currencyexchange.domain.exception.CurrencyExchangeRatesNotFoundException;
+import pl.nn.currencyexchange.domain.exception.ExchangeConflictException;
 import pl.nn.currencyexchange.domain.exception.NotEnoughFundsException;
 import pl.nn.currencyexchange.domain.mapper.AccountMapper;
 import pl.nn.currencyexchange.domain.mapper.AccountMapperImpl;
-import pl.nn.currencyexchange.domain.model.ExchangeRates;
+import pl.nn.currencyexchange.domain.model.ExchangeOrder;
+import pl.nn.currencyexchange.domain.model.ExchangeRateMatrix;
+import pl.nn.currencyexchange.domain.model.Money;
 import pl.nn.currencyexchange.domain.repository.AccountRepository;
 import pl.nn.currencyexchange.domain.service.AccountService;
-import pl.nn.currencyexchange.infrastucture.client.NbpClient;
+import pl.nn.currencyexchange.domain.service.ExchangeRateService;
+import pl.nn.currencyexchange.infrastucture.configuration.properties.ExchangeProperties;
 
 @ExtendWith(MockitoExtension.class)
 class AccountServiceImplTest {
@@ -46,21 +63,29 @@ class AccountServiceImplTest {
   private static final String LAST_NAME = "lastName";
 
   private static final BigDecimal INITIAL_BALANCE = new BigDecimal("1000.00");
+  private static final LocalDate RATES_EFFECTIVE_DATE = LocalDate.of(2024, 11, 4);
 
   @Mock
   private AccountRepository accountRepository;
 
   @Mock
-  private NbpClient nbpClient;
+  private ExchangeRateService exchangeRateService;
 
   private final AccountMapper accountMapper = new AccountMapperImpl();
 
-  private AccountService accountService;
+  private final ExchangeProperties exchangeProperties = new ExchangeProperties();
 
+  private AccountService accountService;
 
   @BeforeEach
   public void init() {
-    accountService = new AccountServiceImpl(accountRepository, accountMapper, nbpClient);
+    exchangeProperties.getOptimistic().setInitialBackoff(Duration.ZERO);
+    accountService = new AccountServiceImpl(accountRepository, accountMapper, exchangeRateService,
+        exchangeProperties, new OptimisticLockRetrier(exchangeProperties,
+        new SimpleMeterRegistry()), new AccountLocks(exchangeProperties),
+        new ExchangeStageTimers(new SimpleMeterRegistry()),
+        new AccountBalanceCache(exchangeProperties, new SimpleMeterRegistry(),
+            new LocalAccountChangeBus()));
   }
 
   @Test
@@ -84,11 +109,39 @@ class AccountServiceImplTest {
     assertThat(result).isEqualTo(expectedAccount.getId());
   }
 
+  @Test
+  @SuppressWarnings("unchecked")
+  void shouldCreateNewAccountsInOrder() {
+    // given
+    var commands = Stream.of("Jan", "Anna")
+        .map(firstName -> CreateAccountCommand.builder()
+            .firstName(firstName)
+            .lastName(LAST_NAME)
+            .balance(INITIAL_BALANCE)
+            .build());
+    var firstId = UUID.randomUUID();
+    var secondId = UUID.randomUUID();
+
+    when(accountRepository.saveAll(any()))
+        .thenAnswer(invocation -> {
+          var accounts = ((Stream<Account>) invocation.getArgument(0)).toList();
+          assertThat(accounts.get(1).getOwner().getFirstName()).isEqualTo("Anna");
+          assertThat(accounts.get(1).getWallet().get(0).getAmount()).isEqualTo(INITIAL_BALANCE);
+          return List.of(firstId, secondId);
+        });
+
+    // when
+    var result = accountService.createNewAccounts(commands);
+
+    // then
+    assertThat(result).isEqualTo(List.of(firstId, secondId));
+  }
+
   @Test
   void shouldSuccessfullyGetAccountBalanceForExistingAccount() {
     // given
-    when(accountRepository.findById(eq(ACCOUNT_ID)))
-        .thenReturn(Optional.of(prepareMockedAccount()));
+    when(accountRepository.findAccountBalance(eq(ACCOUNT_ID)))
+        .thenReturn(Optional.of(accountMapper.map(prepareMockedAccount())));
 
     var expectedResult = AccountBalanceQuery.builder()
         .owner(AccountBalanceQuery.Owner.builder()
@@ -113,7 +166,7 @@ class AccountServiceImplTest {
   @Test
   void shouldThrowExceptionForGetAccountBalanceForNonExistingAccount() {
     // given
-    when(accountRepository.findById(eq(ACCOUNT_ID)))
+    when(accountRepository.findAccountBalance(eq(ACCOUNT_ID)))
         .thenReturn(Optional.empty());
 
     // when
@@ -131,17 +184,26 @@ class AccountServiceImplTest {
         .currency(Currency.USD)
         .build();
 
-    when(accountRepository.findById(eq(ACCOUNT_ID)))
-        .thenReturn(Optional.of(prepareMockedAccount()));
-
-    when(nbpClient.getExchangeRates(eq(Currency.USD.name())))
+    when(exchangeRateService.getExchangeRates())
         .thenReturn(prepareMockedExchangeRates());
 
-    when(accountRepository.save(any()))
-        .thenReturn(prepareMockedAccountAfterExchangeMoney(
+    when(accountRepository.exchange(eq(ExchangeOrder.builder()
+        .accountId(ACCOUNT_ID)
+        .sourceCurrency(Currency.PLN)
+        .sourceAmount(new BigDecimal("40.31"))
+        .targetCurrency(Currency.USD)
+        .targetAmount(new BigDecimal("10.00"))
+        .price(new BigDecimal("4.0311000000"))
+        .rate(new BigDecimal("4.0311"))
+        .rateEffectiveDate(RATES_EFFECTIVE_DATE)
+        .build())))
+        .thenReturn(true);
+
+    when(accountRepository.findAccountBalance(eq(ACCOUNT_ID)))
+        .thenReturn(Optional.of(accountMapper.map(prepareMockedAccountAfterExchangeMoney(
             new BigDecimal("959.69"),
             new BigDecimal("10.00")
-        ));
+        ))));
 
     // when
     var result = accountService.exchangeMoney(ACCOUNT_ID, command);
@@ -167,17 +229,26 @@ class AccountServiceImplTest {
         .currency(Currency.PLN)
         .build();
 
-    when(accountRepository.findById(eq(ACCOUNT_ID)))
-        .thenReturn(Optional.of(prepareMockedAccountWithUsd()));
-
-    when(nbpClient.getExchangeRates(eq(Currency.USD.name())))
+    when(exchangeRateService.getExchangeRates())
         .thenReturn(prepareMockedExchangeRates());
 
-    when(accountRepository.save(any()))
-        .thenReturn(prepareMockedAccountAfterExchangeMoney(
+    when(accountRepository.exchange(eq(ExchangeOrder.builder()
+        .accountId(ACCOUNT_ID)
+        .sourceCurrency(Currency.USD)
+        .sourceAmount(new BigDecimal("12.65"))
+        .targetCurrency(Currency.PLN)
+        .targetAmount(new BigDecimal("50.00"))
+        .price(new BigDecimal("0.2530812644"))
+        .rate(new BigDecimal("3.9513"))
+        .rateEffectiveDate(RATES_EFFECTIVE_DATE)
+        .build())))
+        .thenReturn(true);
+
+    when(accountRepository.findAccountBalance(eq(ACCOUNT_ID)))
+        .thenReturn(Optional.of(accountMapper.map(prepareMockedAccountAfterExchangeMoney(
             new BigDecimal("1050.00"),
             new BigDecimal("17.35")
-        ));
+        ))));
 
     // when
     var result = accountService.exchangeMoney(ACCOUNT_ID, command);
@@ -195,6 +266,39 @@ class AccountServiceImplTest {
     assertThat(usdWallet.getAmount()).isEqualTo(new BigDecimal("17.35"));
   }
 
+  @Test
+  void shouldExchangeForeignCurrenciesAtCrossRateViaPln() {
+    // given
+    var command = ExchangeMoneyCommand.builder()
+        .amount(new BigDecimal("20.00"))
+        .sourceCurrency(Currency.USD)
+        .currency(Currency.EUR)
+        .build();
+
+    when(exchangeRateService.getExchangeRates())
+        .thenReturn(prepareMockedExchangeRates());
+
+    when(accountRepository.exchange(any()))
+        .thenReturn(true);
+
+    when(accountRepository.findAccountBalance(eq(ACCOUNT_ID)))
+        .thenReturn(Optional.of(accountMapper.map(prepareMockedAccountWithUsd())));
+
+    // when
+    accountService.exchangeMoney(ACCOUNT_ID, command);
+
+    // then
+    verify(accountRepository).exchange(eq(ExchangeOrder.builder()
+        .accountId(ACCOUNT_ID)
+        .sourceCurrency(Currency.USD)
+        .sourceAmount(new BigDecimal("22.26"))
+        .targetCurrency(Currency.EUR)
+        .targetAmount(new BigDecimal("20.00"))
+        .price(new BigDecimal("1.1130514008"))
+        .rateEffectiveDate(RATES_EFFECTIVE_DATE)
+        .build()));
+  }
+
   @Test
   void shouldThrowExceptionForExchangeCurrencyWhenGivenAccountDoesNotExist() {
     // given
@@ -203,6 +307,12 @@ class AccountServiceImplTest {
         .currency(Currency.USD)
         .build();
 
+    when(exchangeRateService.getExchangeRates())
+        .thenReturn(prepareMockedExchangeRates());
+
+    when(accountRepository.exchange(any()))
+        .thenReturn(false);
+
     when(accountRepository.findById(eq(ACCOUNT_ID)))
         .thenReturn(Optional.empty());
 
@@ -221,12 +331,15 @@ class AccountServiceImplTest {
         .currency(Currency.USD)
         .build();
 
+    when(exchangeRateService.getExchangeRates())
+        .thenReturn(prepareMockedExchangeRates());
+
+    when(accountRepository.exchange(any()))
+        .thenReturn(false);
+
     when(accountRepository.findById(eq(ACCOUNT_ID)))
         .thenReturn(Optional.of(prepareMockedAccountWithUsd()));
 
-    when(nbpClient.getExchangeRates(eq(Currency.USD.name())))
-        .thenReturn(prepareMockedExchangeRates());
-
     // when
     Throwable thrown = catchThrowable(() -> accountService.exchangeMoney(ACCOUNT_ID, command));
 
@@ -234,6 +347,43 @@ class AccountServiceImplTest {
     assertThat(thrown).isInstanceOf(NotEnoughFundsException.class);
   }
 
+  @Test
+  void shouldVerifyBalanceAddedToWalletAfterLookup() {
+    // given
+    var account = prepareMockedAccount();
+    var exchangedValue = Money.of(new BigDecimal("20.00"), Currency.USD);
+    var service = (AccountServiceImpl) accountService;
+    Throwable beforeTopUp = catchThrowable(() -> service.verifyBalance(account, exchangedValue));
+    account.addBalance(CurrencyBalance.builder()
+        .id(BALANCE_USD_ID)
+        .amount(new BigDecimal("30.00"))
+        .currency(Currency.USD)
+        .build());
+
+    // when
+    Throwable thrown = catchThrowable(() -> service.verifyBalance(account, exchangedValue));
+
+    // then
+    assertThat(beforeTopUp).isInstanceOf(NotEnoughFundsException.class);
+    assertThat(thrown).isNull();
+  }
+
+  @Test
+  void shouldNotVerifyBalanceOfReplacedWallet() {
+    // given
+    var account = prepareMockedAccount();
+    var exchangedValue = Money.of(new BigDecimal("20.00"), Currency.PLN);
+    var service = (AccountServiceImpl) accountService;
+    account.setWallet(List.of());
+
+    // when
+    Throwable thrown = catchThrowable(() -> service.verifyBalance(account, exchangedValue));
+
+    // then
+    assertThat(thrown).isInstanceOf(NotEnoughFundsException.class);
+    assertThat(account.getWallet().isEmpty()).isTrue();
+  }
+
   @Test
   void shouldThrowExceptionForExchangeUnknownCurrency() {
     // given
@@ -242,17 +392,243 @@ class AccountServiceImplTest {
         .currency(Currency.USD)
         .build();
 
+    when(exchangeRateService.getExchangeRates())
+        .thenThrow(new CurrencyExchangeRatesNotFoundException(Currency.USD.name()));
+
+    // when
+    Throwable thrown = catchThrowable(() -> accountService.exchangeMoney(ACCOUNT_ID, command));
+
+    // then
+    assertThat(thrown).isInstanceOf(CurrencyExchangeRatesNotFoundException.class);
+  }
+
+  @Test
+  void shouldRetryOptimisticExchangeAfterVersionConflict() {
+    // given
+    exchangeProperties.setMode(ExchangeProperties.Mode.OPTIMISTIC);
+    var command = ExchangeMoneyCommand.builder()
+        .amount(new BigDecimal("10.00"))
+        .currency(Currency.USD)
+        .build();
+
+    when(exchangeRateService.getExchangeRates())
+        .thenReturn(prepareMockedExchangeRates());
+
     when(accountRepository.findById(eq(ACCOUNT_ID)))
-        .thenReturn(Optional.of(prepareMockedAccountWithUsd()));
+        .thenReturn(Optional.of(prepareMockedAccount()))
+        .thenReturn(Optional.of(prepareMockedAccount()));
 
-    when(nbpClient.getExchangeRates(eq(Currency.USD.name())))
-        .thenReturn(null);
+    when(accountRepository.saveExchange(any(), any()))
+        .thenThrow(new ObjectOptimisticLockingFailureException(CurrencyBalance.class, BALANCE_ID))
+        .thenAnswer(invocation -> invocation.getArgument(0));
+
+    // when
+    var result = accountService.exchangeMoney(ACCOUNT_ID, command);
+
+    // then
+    var plnWallet = result.getWallet().stream()
+        .filter(d -> d.getCurrency().equals(Currency.PLN))
+        .findFirst().get();
+
+    assertThat(plnWallet.getAmount()).isEqualTo(new BigDecimal("959.6900"));
+    verify(accountRepository, times(2)).saveExchange(any(), any());
+  }
+
+  @Test
+  void shouldThrowExceptionWhenOptimisticExchangeKeepsConflicting() {
+    // given
+    exchangeProperties.setMode(ExchangeProperties.Mode.OPTIMISTIC);
+    exchangeProperties.getOptimistic().setMaxAttempts(3);
+    var command = ExchangeMoneyCommand.builder()
+        .amount(new BigDecimal("10.00"))
+        .currency(Currency.USD)
+        .build();
+
+    when(exchangeRateService.getExchangeRates())
+        .thenReturn(prepareMockedExchangeRates());
+
+    when(accountRepository.findById(eq(ACCOUNT_ID)))
+        .thenAnswer(invocation -> Optional.of(prepareMockedAccount()));
+
+    when(accountRepository.saveExchange(any(), any()))
+        .thenThrow(new ObjectOptimisticLockingFailureException(CurrencyBalance.class, BALANCE_ID));
 
     // when
     Throwable thrown = catchThrowable(() -> accountService.exchangeMoney(ACCOUNT_ID, command));
 
     // then
-    assertThat(thrown).isInstanceOf(CurrencyExchangeRatesNotFoundException.class);
+    assertThat(thrown).isInstanceOf(ExchangeConflictException.class);
+    verify(accountRepository, times(3)).saveExchange(any(), any());
+  }
+
+  @Test
+  void shouldRetryAtomicExchangeAfterLockConflict() {
+    // given
+    var command = ExchangeMoneyCommand.builder()
+        .amount(new BigDecimal("10.00"))
+        .currency(Currency.USD)
+        .build();
+
+    when(exchangeRateService.getExchangeRates())
+        .thenReturn(prepareMockedExchangeRates());
+
+    when(accountRepository.exchange(any()))
+        .thenThrow(new CannotAcquireLockException("Deadlock detected"))
+        .thenReturn(true);
+
+    when(accountRepository.findAccountBalance(eq(ACCOUNT_ID)))
+        .thenReturn(Optional.of(accountMapper.map(prepareMockedAccountAfterExchangeMoney(
+            new BigDecimal("959.69"),
+            new BigDecimal("10.00")
+        ))));
+
+    // when
+    var result = accountService.exchangeMoney(ACCOUNT_ID, command);
+
+    // then
+    assertThat(result.getWallet().size()).isEqualTo(2);
+    verify(accountRepository, times(2)).exchange(any());
+  }
+
+  @Test
+  void shouldThrowExceptionWhenEventSourcedExchangeIsNotCoveredByReplayedBalance() {
+    // given
+    exchangeProperties.setMode(ExchangeProperties.Mode.EVENT_SOURCED);
+    var command = ExchangeMoneyCommand.builder()
+        .amount(new BigDecimal("1000.00"))
+        .currency(Currency.USD)
+        .build();
+
+    when(exchangeRateService.getExchangeRates())
+        .thenReturn(prepareMockedExchangeRates());
+
+    when(accountRepository.appendExchanges(any()))
+        .thenReturn(List.of(ExchangeStatus.NOT_ENOUGH_FUNDS));
+
+    // when
+    Throwable thrown = catchThrowable(() -> accountService.exchangeMoney(ACCOUNT_ID, command));
+
+    // then
+    assertThat(thrown).isInstanceOf(NotEnoughFundsException.class);
+    verify(accountRepository, never()).exchange(any());
+    verify(accountRepository, never()).findById(any());
+  }
+
+  @Test
+  void shouldExchangeBatchWithSingleRateLookupAndReportEachOrder() {
+    // given
+    var otherAccountId = UUID.randomUUID();
+    var command = BatchExchangeMoneyCommand.builder()
+        .orders(List.of(
+            BatchExchangeMoneyCommand.Order.builder()
+                .accountId(ACCOUNT_ID)
+                .currency(Currency.USD)
+                .amount(new BigDecimal("10.00"))
+                .build(),
+            BatchExchangeMoneyCommand.Order.builder()
+                .accountId(otherAccountId)
+                .currency(Currency.PLN)
+                .amount(new BigDecimal("50.00"))
+                .build()))
+        .build();
+
+    when(exchangeRateService.getExchangeRates())
+        .thenReturn(prepareMockedExchangeRates());
+
+    when(accountRepository.exchangeAll(eq(List.of(
+        ExchangeOrder.builder()
+            .accountId(ACCOUNT_ID)
+            .sourceCurrency(Currency.PLN)
+            .sourceAmount(new BigDecimal("40.31"))
+            .targetCurrency(Currency.USD)
+            .targetAmount(new BigDecimal("10.00"))
+            .price(new BigDecimal("4.0311000000"))
+            .rate(new BigDecimal("4.0311"))
+            .rateEffectiveDate(RATES_EFFECTIVE_DATE)
+            .build(),
+        ExchangeOrder.builder()
+            .accountId(otherAccountId)
+            .sourceCurrency(Currency.USD)
+            .sourceAmount(new BigDecimal("12.65"))
+            .targetCurrency(Currency.PLN)
+            .targetAmount(new BigDecimal("50.00"))
+            .price(new BigDecimal("0.2530812644"))
+            .rate(new BigDecimal("3.9513"))
+            .rateEffectiveDate(RATES_EFFECTIVE_DATE)
+            .build()))))
+        .thenReturn(List.of(ExchangeStatus.EXECUTED, ExchangeStatus.NOT_ENOUGH_FUNDS));
+
+    // when
+    var result = accountService.exchangeMoney(command);
+
+    // then
+    assertThat(result.getResults().get(0).getStatus()).isEqualTo(ExchangeStatus.EXECUTED);
+    assertThat(result.getResults().get(0).getMessage()).isNull();
+    assertThat(result.getResults().get(1).getAccountId()).isEqualTo(otherAccountId);
+    assertThat(result.getResults().get(1).getStatus()).isEqualTo(ExchangeStatus.NOT_ENOUGH_FUNDS);
+    assertThat(result.getResults().get(1).getMessage()).contains("12.65");
+    verify(exchangeRateService, times(1)).getExchangeRates();
+  }
+
+  @Test
+  void shouldReturnTransactionsPageWithCursorOfItsLastEntry() {
+    // given
+    when(accountRepository.findTransactions(eq(ACCOUNT_ID), eq(10L), eq(3)))
+        .thenReturn(List.of(prepareMockedTransaction(9L), prepareMockedTransaction(8L),
+            prepareMockedTransaction(7L)));
+
+    // when
+    var result = accountService.getAccountTransactions(ACCOUNT_ID, 10L, 2);
+
+    // then
+    assertThat(result.getTransactions().stream()
+        .map(AccountTransactionsQuery.Transaction::getId)
+        .toList()).isEqualTo(List.of(9L, 8L));
+    assertThat(result.getNextCursor()).isEqualTo(8L);
+  }
+
+  @Test
+  void shouldReturnLastTransactionsPageWithoutCursor() {
+    // given
+    when(accountRepository.findTransactions(eq(ACCOUNT_ID), eq(null), eq(3)))
+        .thenReturn(List.of(prepareMockedTransaction(2L), prepareMockedTransaction(1L)));
+
+    // when
+    var result = accountService.getAccountTransactions(ACCOUNT_ID, null, 2);
+
+    // then
+    assertThat(result.getTransactions().size()).isEqualTo(2);
+    assertThat(result.getNextCursor()).isNull();
+  }
+
+  @Test
+  void shouldThrowExceptionForTransactionsOfNonExistingAccount() {
+    // given
+    when(accountRepository.findTransactions(eq(ACCOUNT_ID), eq(null), eq(51)))
+        .thenReturn(List.of());
+    when(accountRepository.existsById(eq(ACCOUNT_ID)))
+        .thenReturn(false);
+
+    // when
+    Throwable thrown = catchThrowable(() ->
+        accountService.getAccountTransactions(ACCOUNT_ID, null, 50));
+
+    // then
+    assertThat(thrown).isInstanceOf(AccountNotExistsException.class);
+  }
+
+  private ExchangeTransaction prepareMockedTransaction(Long id) {
+    return ExchangeTransaction.builder()
+        .id(id)
+        .accountId(ACCOUNT_ID)
+        .sourceCurrency(Currency.PLN)
+        .sourceAmount(new BigDecimal("40.31"))
+        .targetCurrency(Currency.USD)
+        .targetAmount(new BigDecimal("10.00"))
+        .price(new BigDecimal("4.0311000000"))
+        .rate(new BigDecimal("4.0311"))
+        .rateEffectiveDate(RATES_EFFECTIVE_DATE)
+        .build();
   }
 
   private Account prepareMockedAccount() {
@@ -321,16 +697,9 @@ class AccountServiceImplTest {
         .build();
   }
 
-  private ExchangeRates prepareMockedExchangeRates() {
-    return ExchangeRates.builder()
-        .code(Currency.USD.name())
-        .ratesList(List.of(
-            ExchangeRates.Rates.builder()
-                .effectiveDate(LocalDate.now())
-                .ask(new BigDecimal("4.0311"))
-                .bid(new BigDecimal("3.9513"))
-                .build()
-        ))
-        .build();
+  private ExchangeRateMatrix prepareMockedExchangeRates() {
+    return ExchangeRateMatrix.of(RATES_EFFECTIVE_DATE,
+        Map.of(Currency.USD, new BigDecimal("3.9513"), Currency.EUR, new BigDecimal("4.3110")),
+        Map.of(Currency.USD, new BigDecimal("4.0311"), Currency.EUR, new BigDecimal("4.3980")));
   }
 }
\ No newline at end of file
@@ -0,0 +1,382 @@
+package pl.nn.currencyexchange.domain.service.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.AssertionsForClassTypes.catchThrowable;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import pl.nn.currencyexchange.domain.enums.Currency;
+import pl.nn.currencyexchange.domain.exception.CurrencyExchangeRatesNotFoundException;
+import pl.nn.currencyexchange.domain.exception.ExchangeRatesUnavailableException;
+import pl.nn.currencyexchange.domain.mapper.ExchangeRateMapperImpl;
+import pl.nn.currencyexchange.domain.model.ExchangeRate;
+import pl.nn.currencyexchange.domain.model.ExchangeRatesTable;
+import pl.nn.currencyexchange.domain.repository.ExchangeRateRepository;
+import pl.nn.currencyexchange.infrastucture.client.NbpClient;
+import pl.nn.currencyexchange.infrastucture.client.ResilientNbpClient;
+import pl.nn.currencyexchange.infrastucture.configuration.properties.ExchangeRatesProperties;
+
+@ExtendWith(MockitoExtension.class)
+class ExchangeRateServiceImplTest {
+
+  private static final Instant NOW = Instant.parse("2024-11-04T10:00:00Z");
+
+  @Mock
+  private NbpClient nbpClient;
+
+  @Mock
+  private ExchangeRateRepository exchangeRateRepository;
+
+  private final ExchangeRatesProperties properties = new ExchangeRatesProperties();
+
+  private final CircuitBreakerRegistry circuitBreakerRegistry = CircuitBreakerRegistry.of(
+      CircuitBreakerConfig.custom()
+          .permittedNumberOfCallsInHalfOpenState(1)
+          .build());
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  private MutableClock clock;
+
+  private ExchangeRateServiceImpl exchangeRateService;
+
+  @BeforeEach
+  public void init() {
+    clock = new MutableClock(NOW);
+    properties.getCache().setMaxAge(Duration.ofHours(1));
+    exchangeRateService = new ExchangeRateServiceImpl(
+        new ResilientNbpClient(nbpClient, circuitBreakerRegistry, meterRegistry),
+        exchangeRateRepository, new ExchangeRateMapperImpl(), properties, clock, meterRegistry,
+        Runnable::run);
+  }
+
+  @Test
+  void shouldServeCachedRatesWithoutCallingNbp() {
+    // given
+    when(nbpClient.getExchangeRatesTables())
+        .thenReturn(prepareMockedExchangeRates("4.0311"));
+
+    // when
+    exchangeRateService.getExchangeRates();
+    clock.advance(Duration.ofMinutes(30));
+    var result = exchangeRateService.getExchangeRates();
+
+    // then
+    assertThat(result.getRate(Currency.PLN, Currency.USD)).isEqualByComparingTo("4.0311");
+    assertThat(exchangeRateService.getExchangeRatesAge())
+        .contains(Duration.ofMinutes(30));
+    verify(nbpClient, times(1)).getExchangeRatesTables();
+  }
+
+  @Test
+  void shouldServeExpiredRatesAndRevalidateThemInBackground() {
+    // given
+    when(nbpClient.getExchangeRatesTables())
+        .thenReturn(prepareMockedExchangeRates("4.0311"))
+        .thenReturn(prepareMockedExchangeRates("4.1000"));
+
+    // when
+    exchangeRateService.getExchangeRates();
+    clock.advance(Duration.ofHours(2));
+    var staleResult = exchangeRateService.getExchangeRates();
+    var result = exchangeRateService.getExchangeRates();
+
+    // then
+    assertThat(staleResult.getRate(Currency.PLN, Currency.USD)).isEqualByComparingTo("4.0311");
+    assertThat(result.getRate(Currency.PLN, Currency.USD)).isEqualByComparingTo("4.1000");
+    assertThat(exchangeRateService.getExchangeRatesAge()).contains(Duration.ZERO);
+  }
+
+  @Test
+  void shouldQueueSingleRevalidationForBurstOfStaleReads() {
+    // given
+    var queued = new ArrayList<Runnable>();
+    exchangeRateService = new ExchangeRateServiceImpl(
+        new ResilientNbpClient(nbpClient, circuitBreakerRegistry, meterRegistry),
+        exchangeRateRepository, new ExchangeRateMapperImpl(), properties, clock, meterRegistry,
+        queued::add);
+    when(nbpClient.getExchangeRatesTables())
+        .thenReturn(prepareMockedExchangeRates("4.0311"))
+        .thenReturn(prepareMockedExchangeRates("4.1000"));
+    exchangeRateService.getExchangeRates();
+    clock.advance(Duration.ofHours(2));
+
+    // when
+    for (int i = 0; i < 10; i++) {
+      exchangeRateService.getExchangeRates();
+    }
+    queued.forEach(Runnable::run);
+
+    // then
+    assertThat(queued).hasSize(1);
+    assertThat(exchangeRateService.getExchangeRates().getRate(Currency.PLN, Currency.USD))
+        .isEqualByComparingTo("4.1000");
+    verify(nbpClient, times(2)).getExchangeRatesTables();
+  }
+
+  @Test
+  void shouldReloadRatesExpiredBeyondStalenessBound() {
+    // given
+    properties.getCache().setMaxStale(Duration.ofHours(1));
+    when(nbpClient.getExchangeRatesTables())
+        .thenReturn(prepareMockedExchangeRates("4.0311"))
+        .thenReturn(prepareMockedExchangeRates("4.1000"));
+
+    // when
+    exchangeRateService.getExchangeRates();
+    clock.advance(Duration.ofHours(3));
+    var result = exchangeRateService.getExchangeRates();
+
+    // then
+    assertThat(result.getRate(Currency.PLN, Currency.USD)).isEqualByComparingTo("4.1000");
+  }
+
+  @Test
+  void shouldServeLastKnownRatesWhileCircuitBreakerIsOpen() {
+    // given
+    when(nbpClient.getExchangeRatesTables())
+        .thenReturn(prepareMockedExchangeRates("4.0311"));
+    exchangeRateService.getExchangeRates();
+
+    // when
+    circuitBreakerRegistry.circuitBreaker(ResilientNbpClient.CIRCUIT_BREAKER_NAME)
+        .transitionToOpenState();
+    clock.advance(Duration.ofHours(2));
+    var result = exchangeRateService.getExchangeRates();
+
+    // then
+    assertThat(result.getRate(Currency.PLN, Currency.USD)).isEqualByComparingTo("4.0311");
+    verify(nbpClient, times(1)).getExchangeRatesTables();
+  }
+
+  @Test
+  void shouldFailFastWhileCircuitBreakerIsOpenAndNoRatesAreCached() {
+    // given
+    circuitBreakerRegistry.circuitBreaker(ResilientNbpClient.CIRCUIT_BREAKER_NAME)
+        .transitionToOpenState();
+
+    // when
+    Throwable thrown = catchThrowable(() -> exchangeRateService.getExchangeRates());
+
+    // then
+    assertThat(thrown).isInstanceOf(ExchangeRatesUnavailableException.class);
+    verify(nbpClient, never()).getExchangeRatesTables();
+  }
+
+  @Test
+  void shouldProbeNbpOnlyWhileCircuitBreakerIsNotClosed() {
+    // given
+    var circuitBreaker =
+        circuitBreakerRegistry.circuitBreaker(ResilientNbpClient.CIRCUIT_BREAKER_NAME);
+    when(nbpClient.getExchangeRatesTables())
+        .thenReturn(prepareMockedExchangeRates("4.0311"));
+
+    exchangeRateService.getExchangeRates();
+
+    // when
+    exchangeRateService.probe();
+    circuitBreaker.transitionToOpenState();
+    circuitBreaker.transitionToHalfOpenState();
+    exchangeRateService.probe();
+
+    // then
+    verify(nbpClient, times(2)).getExchangeRatesTables();
+    assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+  }
+
+  @Test
+  void shouldKeepCachedRatesWhenBackgroundRefreshFails() {
+    // given
+    when(nbpClient.getExchangeRatesTables())
+        .thenReturn(prepareMockedExchangeRates("4.0311"))
+        .thenThrow(new IllegalStateException("NBP unavailable"));
+
+    // when
+    exchangeRateService.refresh();
+    exchangeRateService.refresh();
+    var result = exchangeRateService.getExchangeRates();
+
+    // then
+    assertThat(result.getRate(Currency.PLN, Currency.USD)).isEqualByComparingTo("4.0311");
+  }
+
+  @Test
+  void shouldProbeNbpUntilFirstTableIsCached() {
+    // given
+    when(nbpClient.getExchangeRatesTables())
+        .thenThrow(new IllegalStateException("NBP unavailable"))
+        .thenReturn(prepareMockedExchangeRates("4.0311"));
+
+    // when
+    exchangeRateService.probe();
+    var ageAfterFailure = exchangeRateService.getExchangeRatesAge();
+    exchangeRateService.probe();
+    exchangeRateService.probe();
+
+    // then
+    assertThat(ageAfterFailure).isEmpty();
+    assertThat(exchangeRateService.getExchangeRatesAge()).contains(Duration.ZERO);
+    verify(nbpClient, times(2)).getExchangeRatesTables();
+  }
+
+  @Test
+  void shouldStoreFetchedRates() {
+    // given
+    when(nbpClient.getExchangeRatesTables())
+        .thenReturn(prepareMockedExchangeRates("4.0311"));
+
+    // when
+    exchangeRateService.getExchangeRates();
+
+    // then
+    verify(exchangeRateRepository).saveAll(List.of(ExchangeRate.builder()
+        .currency(Currency.USD)
+        .effectiveDate(LocalDate.now())
+        .bid(new BigDecimal("3.9513"))
+        .ask(new BigDecimal("4.0311"))
+        .build()), NOW);
+  }
+
+  @Test
+  void shouldServeRestoredRatesWithoutCallingNbp() {
+    // given
+    var fetchedAt = NOW.minus(Duration.ofMinutes(30));
+    when(exchangeRateRepository.findLatest())
+        .thenReturn(Optional.of(new ExchangeRateRepository.StoredRates(List.of(
+            ExchangeRate.builder()
+                .currency(Currency.USD)
+                .effectiveDate(LocalDate.now())
+                .bid(new BigDecimal("3.9513"))
+                .ask(new BigDecimal("4.0311"))
+                .build()), fetchedAt)));
+
+    // when
+    var restored = exchangeRateService.restoreStoredRates();
+    var result = exchangeRateService.getExchangeRates();
+
+    // then
+    assertThat(restored).isTrue();
+    assertThat(result.getRate(Currency.PLN, Currency.USD)).isEqualByComparingTo("4.0311");
+    assertThat(exchangeRateService.getExchangeRatesAge()).contains(Duration.ofMinutes(30));
+    verify(nbpClient, never()).getExchangeRatesTables();
+  }
+
+  @Test
+  void shouldRestoreStoredRatesOnFirstReadWhileCircuitBreakerIsOpen() {
+    // given
+    circuitBreakerRegistry.circuitBreaker(ResilientNbpClient.CIRCUIT_BREAKER_NAME)
+        .transitionToOpenState();
+    when(exchangeRateRepository.findLatest())
+        .thenReturn(Optional.of(new ExchangeRateRepository.StoredRates(List.of(
+            ExchangeRate.builder()
+                .currency(Currency.USD)
+                .effectiveDate(LocalDate.now())
+                .bid(new BigDecimal("3.9513"))
+                .ask(new BigDecimal("4.0311"))
+                .build()), NOW.minus(Duration.ofHours(2)))));
+
+    // when
+    var result = exchangeRateService.getExchangeRates();
+
+    // then
+    assertThat(result.getRate(Currency.PLN, Currency.USD)).isEqualByComparingTo("4.0311");
+    assertThat(exchangeRateService.getExchangeRatesAge()).contains(Duration.ofHours(2));
+    verify(nbpClient, never()).getExchangeRatesTables();
+  }
+
+  @Test
+  void shouldCountCacheLookupsAndTimeNbpRequests() {
+    // given
+    when(nbpClient.getExchangeRatesTables())
+        .thenReturn(prepareMockedExchangeRates("4.0311"));
+
+    // when
+    exchangeRateService.getExchangeRates();
+    exchangeRateService.getExchangeRates();
+
+    // then
+    assertThat(meterRegistry.get("exchange.rates.lookups").tag("result", "miss").counter()
+        .count()).isEqualTo(1);
+    assertThat(meterRegistry.get("exchange.rates.lookups").tag("result", "hit").counter()
+        .count()).isEqualTo(1);
+    assertThat(meterRegistry.get("nbp.requests").tag("outcome", "success").timer().count())
+        .isEqualTo(1);
+  }
+
+  @Test
+  void shouldThrowExceptionForMissingRates() {
+    // given
+    when(nbpClient.getExchangeRatesTables())
+        .thenReturn(null);
+
+    // when
+    Throwable thrown = catchThrowable(() -> exchangeRateService.getExchangeRates());
+
+    // then
+    assertThat(thrown).isInstanceOf(CurrencyExchangeRatesNotFoundException.class);
+    assertThat(exchangeRateService.getExchangeRatesAge()).isEmpty();
+  }
+
+  private List<ExchangeRatesTable> prepareMockedExchangeRates(String ask) {
+    return List.of(ExchangeRatesTable.builder()
+        .table("C")
+        .effectiveDate(LocalDate.now())
+        .rates(List.of(
+            ExchangeRatesTable.Rate.builder()
+                .code(Currency.USD.name())
+                .ask(new BigDecimal(ask))
+                .bid(new BigDecimal("3.9513"))
+                .build()
+        ))
+        .build());
+  }
+
+  private static class MutableClock extends Clock {
+
+    private Instant instant;
+
+    MutableClock(Instant instant) {
+      this.instant = instant;
+    }
+
+    void advance(Duration duration) {
+      instant = instant.plus(duration);
+    }
+
+    @Override
+    public ZoneId getZone() {
+      return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+      return this;
+    }
+
+    @Override
+    public Instant instant() {
+      return instant;
+    }
+  }
+}
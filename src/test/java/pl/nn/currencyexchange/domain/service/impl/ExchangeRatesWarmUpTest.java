@@ -0,0 +1,63 @@
+package pl.nn.currencyexchange.domain.service.impl;
+
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import pl.nn.currencyexchange.domain.exception.ExchangeRatesUnavailableException;
+import pl.nn.currencyexchange.domain.model.ExchangeRateMatrix;
+import pl.nn.currencyexchange.domain.service.ExchangeRateService;
+import pl.nn.currencyexchange.infrastucture.configuration.properties.ExchangeRatesProperties;
+
+@ExtendWith(MockitoExtension.class)
+class ExchangeRatesWarmUpTest {
+
+  @Mock
+  private ExchangeRateService exchangeRateService;
+
+  private final ExchangeRatesProperties properties = new ExchangeRatesProperties();
+
+  private ExchangeRatesWarmUp exchangeRatesWarmUp;
+
+  @BeforeEach
+  public void init() {
+    properties.getWarmUp().setMaxAttempts(3);
+    properties.getWarmUp().setBackoff(Duration.ZERO);
+    exchangeRatesWarmUp = new ExchangeRatesWarmUp(exchangeRateService, properties);
+  }
+
+  @Test
+  void shouldRetryUntilRatesAreLoaded() throws Exception {
+    // given
+    when(exchangeRateService.getExchangeRates())
+        .thenThrow(new ExchangeRatesUnavailableException("NBP unavailable"))
+        .thenReturn(ExchangeRateMatrix.of(LocalDate.now(), Map.of(), Map.of()));
+
+    // when
+    exchangeRatesWarmUp.run(null);
+
+    // then
+    verify(exchangeRateService, times(2)).getExchangeRates();
+  }
+
+  @Test
+  void shouldNotFailStartupWhenNbpIsUnavailable() throws Exception {
+    // given
+    when(exchangeRateService.getExchangeRates())
+        .thenThrow(new ExchangeRatesUnavailableException("NBP unavailable"));
+
+    // when
+    exchangeRatesWarmUp.run(null);
+
+    // then
+    verify(exchangeRateService, times(3)).getExchangeRates();
+  }
+}
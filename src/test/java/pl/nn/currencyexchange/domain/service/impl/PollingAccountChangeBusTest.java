@@ -0,0 +1,88 @@
+package pl.nn.currencyexchange.domain.service.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import pl.nn.currencyexchange.domain.repository.AccountChangeRepository;
+import pl.nn.currencyexchange.domain.repository.AccountChangeRepository.AccountChange;
+import pl.nn.currencyexchange.infrastucture.configuration.properties.ExchangeProperties;
+
+@ExtendWith(MockitoExtension.class)
+class PollingAccountChangeBusTest {
+
+  private static final UUID OTHER_INSTANCE_ID = UUID.randomUUID();
+  private static final UUID FIRST_ACCOUNT_ID = UUID.randomUUID();
+  private static final UUID SECOND_ACCOUNT_ID = UUID.randomUUID();
+  private static final UUID THIRD_ACCOUNT_ID = UUID.randomUUID();
+
+  @Mock
+  private AccountChangeRepository accountChangeRepository;
+
+  private final ExchangeProperties exchangeProperties = new ExchangeProperties();
+
+  private final List<Collection<UUID>> received = new ArrayList<>();
+
+  private PollingAccountChangeBus accountChangeBus;
+
+  @BeforeEach
+  public void init() {
+    when(accountChangeRepository.findLastId()).thenReturn(10L);
+    accountChangeBus = new PollingAccountChangeBus(accountChangeRepository, Clock.systemUTC(),
+        exchangeProperties);
+    accountChangeBus.subscribe(received::add);
+  }
+
+  @Test
+  void shouldDeliverEachChangeOnceAndMovePastSettledChangesOnly() {
+    // given
+    var settleAfter = exchangeProperties.getBalanceCache().getSettleAfter();
+    when(accountChangeRepository.findAfter(10L, settleAfter)).thenReturn(List.of(
+        new AccountChange(11, FIRST_ACCOUNT_ID, OTHER_INSTANCE_ID, true),
+        new AccountChange(13, SECOND_ACCOUNT_ID, OTHER_INSTANCE_ID, false)));
+    when(accountChangeRepository.findAfter(11L, settleAfter)).thenReturn(List.of(
+        new AccountChange(12, THIRD_ACCOUNT_ID, OTHER_INSTANCE_ID, true),
+        new AccountChange(13, SECOND_ACCOUNT_ID, OTHER_INSTANCE_ID, true)));
+    when(accountChangeRepository.findAfter(13L, settleAfter)).thenReturn(List.of());
+
+    // when
+    accountChangeBus.poll();
+    accountChangeBus.poll();
+    accountChangeBus.poll();
+
+    // then
+    assertThat(received).containsExactly(
+        Set.of(FIRST_ACCOUNT_ID, SECOND_ACCOUNT_ID),
+        Set.of(THIRD_ACCOUNT_ID));
+  }
+
+  @Test
+  void shouldNotDeliverChangesOfItsOwnInstance() {
+    // given
+    accountChangeBus.publish(List.of(FIRST_ACCOUNT_ID));
+    var origin = ArgumentCaptor.forClass(UUID.class);
+    verify(accountChangeRepository).append(origin.capture(), eq(List.of(FIRST_ACCOUNT_ID)));
+    when(accountChangeRepository.findAfter(eq(10L), any())).thenReturn(List.of(
+        new AccountChange(11, FIRST_ACCOUNT_ID, origin.getValue(), true)));
+
+    // when
+    accountChangeBus.poll();
+
+    // then
+    assertThat(received).isEmpty();
+  }
+}
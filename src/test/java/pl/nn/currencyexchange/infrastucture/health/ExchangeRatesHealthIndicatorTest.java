@@ -0,0 +1,62 @@
+package pl.nn.currencyexchange.infrastucture.health;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.boot.actuate.health.Status;
+import pl.nn.currencyexchange.domain.service.ExchangeRateService;
+import pl.nn.currencyexchange.infrastucture.configuration.properties.ExchangeRatesProperties;
+
+@ExtendWith(MockitoExtension.class)
+class ExchangeRatesHealthIndicatorTest {
+
+  @Mock
+  private ExchangeRateService exchangeRateService;
+
+  private final ExchangeRatesProperties properties = new ExchangeRatesProperties();
+
+  private ExchangeRatesHealthIndicator healthIndicator;
+
+  @BeforeEach
+  public void init() {
+    properties.getCache().setMaxAge(Duration.ofHours(12));
+    properties.getCache().setMaxStale(Duration.ofDays(3));
+    healthIndicator = new ExchangeRatesHealthIndicator(exchangeRateService, properties);
+  }
+
+  @Test
+  void shouldStayUpAndReportStaleRates() {
+    // given
+    when(exchangeRateService.getExchangeRatesAge())
+        .thenReturn(Optional.of(Duration.ofDays(4)));
+
+    // when
+    var health = healthIndicator.health();
+
+    // then
+    assertThat(health.getStatus()).isEqualTo(Status.UP);
+    assertThat(health.getDetails())
+        .containsEntry("age", Duration.ofDays(4))
+        .containsEntry("stale", true);
+  }
+
+  @Test
+  void shouldBeDownUntilRatesAreLoaded() {
+    // given
+    when(exchangeRateService.getExchangeRatesAge())
+        .thenReturn(Optional.empty());
+
+    // when
+    var health = healthIndicator.health();
+
+    // then
+    assertThat(health.getStatus()).isEqualTo(Status.DOWN);
+  }
+}